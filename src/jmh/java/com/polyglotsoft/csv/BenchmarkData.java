@@ -0,0 +1,98 @@
+package com.polyglotsoft.csv;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkData {
+    static final int LINES = 1024;
+
+    private static final long SEED = 0x5EEDL;
+    private static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet"
+    };
+
+    private BenchmarkData() {
+    }
+
+    static String[] lines(String dataset) {
+        Random random = new Random(SEED);
+        String[] lines = new String[LINES];
+
+        for (int i = 0; i < lines.length; ++i) {
+            lines[i] = line(dataset, random);
+        }
+
+        return lines;
+    }
+
+    static List<String> sample(String dataset) {
+        return Arrays.asList(lines(dataset)).subList(0, 5);
+    }
+
+    private static String line(String dataset, Random random) {
+        switch (dataset) {
+            case "PLAIN":
+                return join(random, 6, false, false);
+            case "QUOTED":
+                return join(random, 6, true, false);
+            case "ESCAPED":
+                return join(random, 6, true, true);
+            case "WIDE":
+                return join(random, CsvParser.COLUMN_LIMIT, false, false);
+            case "LONG":
+                return longLine(random);
+            default:
+                throw new IllegalArgumentException(dataset);
+        }
+    }
+
+    private static String join(Random random, int columns, boolean quoted, boolean escaped) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < columns; ++i) {
+            if (0 < i) {
+                builder.append(CsvParser.COMMA);
+            }
+
+            if (0 == i % 3) {
+                builder.append(random.nextInt(1_000_000));
+
+                continue;
+            }
+
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (!quoted) {
+                builder.append(word);
+
+                continue;
+            }
+
+            builder.append(CsvParser.DOUBLE_QUOTES).append(word);
+            if (escaped) {
+                builder.append(" \"\"").append(WORDS[random.nextInt(WORDS.length)]).append("\"\"");
+            }
+
+            builder.append(", ").append(word).append(CsvParser.DOUBLE_QUOTES);
+        }
+
+        return builder.toString();
+    }
+
+    private static String longLine(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int fieldLength = CsvParser.LINE_LIMIT / CsvParser.COLUMN_LIMIT - 1;
+
+        for (int i = 0; i < CsvParser.COLUMN_LIMIT; ++i) {
+            if (0 < i) {
+                builder.append(CsvParser.COMMA);
+            }
+
+            for (int j = 0; j < fieldLength; ++j) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+
+        return builder.toString();
+    }
+}
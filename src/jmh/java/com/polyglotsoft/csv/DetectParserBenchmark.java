@@ -0,0 +1,45 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DetectParserBenchmark {
+    @Param({"PLAIN", "QUOTED", "ESCAPED", "WIDE", "LONG"})
+    public String dataset;
+
+    private final CsvDialectDetector detector = new CsvDialectDetector();
+
+    private List<String> sample;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        sample = BenchmarkData.sample(dataset);
+        bytes = (String.join("\n", sample) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CsvParser detectParser() {
+        return CsvParser.detectParser(sample, CsvParser.LINE_LIMIT, CsvParser.COLUMN_LIMIT);
+    }
+
+    @Benchmark
+    public CsvParser detect() throws IOException {
+        return detector.detect(new ByteArrayInputStream(bytes)).getParser();
+    }
+}
@@ -0,0 +1,39 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a parsed field into a String, with and without doubled quotations to collapse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GetStringBenchmark {
+    @Param({"CLEAN", "ESCAPED"})
+    public String field;
+
+    private final CsvFieldIndex index = new CsvFieldIndex();
+
+    @Setup
+    public void setUp() {
+        String content = "Venture \"Extended Edition, Very Large\" with \"inner\" quotes";
+        String line = "CLEAN".equals(field) ? content.replace('"', '\'')
+                : '"' + content.replace("\"", "\"\"") + '"';
+
+        new CsvParser().parseLine(line, index);
+    }
+
+    @Benchmark
+    public String getString() {
+        return index.getString(0);
+    }
+}
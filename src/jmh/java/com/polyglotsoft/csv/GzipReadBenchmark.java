@@ -0,0 +1,95 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads the same records from a plain file, and from its gzip copy once on the parsing thread and once through the
+ * pipeline with inflating on its own thread. The gap between {@code plain} and {@code pipelined} is what compression
+ * still costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GzipReadBenchmark {
+    private static final int COPIES = 256;
+
+    @Param({"PLAIN", "QUOTED"})
+    public String dataset;
+
+    private CsvParser parser;
+    private Path plain;
+    private Path gzip;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new CsvParser();
+        plain = Files.createTempFile("benchmark", ".csv");
+        gzip = Files.createTempFile("benchmark", ".csv.gz");
+        byte[] content = (String.join("\n", BenchmarkData.lines(dataset)) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream output = Files.newOutputStream(plain);
+             OutputStream compressed = new GZIPOutputStream(Files.newOutputStream(gzip), 64 * 1024)) {
+            for (int i = 0; i < COPIES; ++i) {
+                output.write(content);
+                compressed.write(content);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(plain);
+        Files.delete(gzip);
+    }
+
+    @Benchmark
+    public void plain(Blackhole blackhole) throws IOException, InterruptedException {
+        try (CsvBatches batches = new CsvPipeline(parser).open(plain)) {
+            drain(batches, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void lineByLine(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(gzip)), StandardCharsets.UTF_8))) {
+            for (String line; null != (line = reader.readLine()); ) {
+                blackhole.consume(parser.parseLine(line));
+            }
+        }
+    }
+
+    @Benchmark
+    public void pipelined(Blackhole blackhole) throws IOException, InterruptedException {
+        try (CsvBatches batches = new CsvPipeline(parser).openGzip(gzip)) {
+            drain(batches, blackhole);
+        }
+    }
+
+    private static void drain(CsvBatches batches, Blackhole blackhole) throws IOException, InterruptedException {
+        for (List<String[]> batch; null != (batch = batches.take()); ) {
+            blackhole.consume(batch);
+        }
+    }
+}
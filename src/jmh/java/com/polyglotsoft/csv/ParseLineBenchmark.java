@@ -0,0 +1,54 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseLineBenchmark {
+    @Param({"PLAIN", "QUOTED", "ESCAPED", "WIDE", "LONG"})
+    public String dataset;
+
+    private CsvParser parser;
+    private String[] lines;
+    private byte[][] bytes;
+
+    @Setup
+    public void setUp() {
+        parser = new CsvParser();
+        lines = BenchmarkData.lines(dataset);
+        bytes = new byte[lines.length][];
+
+        for (int i = 0; i < lines.length; ++i) {
+            bytes[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void parseLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(parser.parseLine(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void parseBytes(Blackhole blackhole) {
+        for (byte[] line : bytes) {
+            blackhole.consume(parser.parseLine(line, 0, line.length));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worst case lines for quote handling, made of nothing but quotations, at growing lengths up to {@code lineLimit}.
+ * The time per char has to stay flat as {@code length} grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QuoteScalingBenchmark {
+    @Param({"64", "256", "1024", "4096", "16384"})
+    public int length;
+
+    /**
+     * UNQUOTED: one long field with a quotation every other char. ESCAPED: one quoted field of doubled quotations.
+     * UNCLOSED: a quoted field that never closes, so the line is split again on the delimiter.
+     */
+    @Param({"UNQUOTED", "ESCAPED", "UNCLOSED"})
+    public String shape;
+
+    private CsvParser parser;
+    private String line;
+
+    @Setup
+    public void setUp() {
+        parser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, length, CsvParser.COLUMN_LIMIT);
+
+        StringBuilder builder = new StringBuilder(length);
+        switch (shape) {
+            case "UNQUOTED":
+                while (builder.length() < length) {
+                    builder.append("a\"");
+                }
+                break;
+            case "ESCAPED":
+                builder.append('"');
+                while (builder.length() < length - 1) {
+                    builder.append("\"\"");
+                }
+                builder.append('"');
+                break;
+            default:
+                while (builder.length() < length) {
+                    builder.append("\"a\"\"");
+                }
+                break;
+        }
+
+        line = builder.substring(0, length);
+    }
+
+    @Benchmark
+    public String[] parseLine() {
+        return parser.parseLine(line);
+    }
+}
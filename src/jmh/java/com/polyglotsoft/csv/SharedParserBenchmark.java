@@ -0,0 +1,70 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One parser shared by 1, 2, 4 and all available threads. The scores are the total throughput of all threads, so
+ * they should grow with the thread count until the cores run out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SharedParserBenchmark {
+    @Param({"PLAIN", "ESCAPED"})
+    public String dataset;
+
+    private CsvParser parser;
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        parser = new CsvParser();
+        lines = BenchmarkData.lines(dataset);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void threads1(Blackhole blackhole) {
+        parse(blackhole);
+    }
+
+    @Benchmark
+    @Threads(2)
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void threads2(Blackhole blackhole) {
+        parse(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void threads4(Blackhole blackhole) {
+        parse(blackhole);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void threadsMax(Blackhole blackhole) {
+        parse(blackhole);
+    }
+
+    private void parse(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(parser.parseLine(line));
+        }
+    }
+}
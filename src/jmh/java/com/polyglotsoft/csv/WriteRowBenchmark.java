@@ -0,0 +1,60 @@
+package com.polyglotsoft.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes parsed records back out to a writer that discards everything, so only quoting and buffering are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WriteRowBenchmark {
+    @Param({"PLAIN", "QUOTED", "ESCAPED", "WIDE", "LONG"})
+    public String dataset;
+
+    private String[][] rows;
+    private CsvWriter writer;
+
+    @Setup
+    public void setUp() {
+        CsvParser parser = new CsvParser();
+        String[] lines = BenchmarkData.lines(dataset);
+        rows = new String[lines.length][];
+
+        for (int i = 0; i < lines.length; ++i) {
+            rows[i] = parser.parseLine(lines[i]);
+        }
+
+        writer = new CsvWriter(new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, parser);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.LINES)
+    public void writeRows() throws IOException {
+        writer.writeRows(rows);
+    }
+}
@@ -0,0 +1,165 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Splits a file into ranges that each start on a record boundary. Whether a chunk starts inside a quotation is only
+ * known once the previous chunks are scanned, so every chunk is first scanned in parallel from all scanner states at
+ * once; a cheap sequential pass over those summaries then picks the real state and the first record start of every
+ * chunk.
+ */
+final class ChunkPlanner {
+    private ChunkPlanner() {
+    }
+
+    static long[] plan(FileChannel channel, CsvParser parser, int chunkSize, ForkJoinPool pool) throws IOException {
+        long size = channel.size();
+        if (0 == size) {
+            return new long[]{0};
+        }
+
+        int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+        List<ForkJoinTask<Summary>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; ++i) {
+            long start = (long) i * chunkSize;
+            long length = Math.min(chunkSize, size - start);
+
+            tasks.add(pool.submit(() -> {
+                try {
+                    ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+                    return summarize(bytes, start, new RecordScanner(parser.getDelimiter(), parser.getQuotation()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+
+        long[] boundaries = new long[chunks + 1];
+        int count = 0;
+        int state = RecordScanner.RECORD_START;
+        for (int i = 0; i < chunks; ++i) {
+            Summary summary = join(tasks.get(i));
+
+            long boundary = RecordScanner.RECORD_START == state
+                    ? (long) i * chunkSize : summary.firstRecordStarts[state];
+            if (0 == i || (boundaries[count - 1] < boundary && boundary < size)) {
+                boundaries[count++] = boundary;
+            }
+
+            state = summary.endStates[state];
+        }
+
+        boundaries[count++] = size;
+
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    static Summary summarize(ByteBuffer bytes, long offset, RecordScanner scanner) {
+        Summary summary = new Summary();
+        int[] tracks = new int[RecordScanner.STATES];
+        int[] owners = new int[RecordScanner.STATES];
+        int trackCount = RecordScanner.STATES;
+
+        for (int s = 0; s < RecordScanner.STATES; ++s) {
+            tracks[s] = s;
+            owners[s] = s;
+        }
+
+        Arrays.fill(summary.firstRecordStarts, -1);
+
+        int limit = bytes.limit();
+        for (int i = 0; i < limit; ++i) {
+            int characterClass = scanner.classOf(bytes.get(i));
+
+            for (int t = 0; t < trackCount; ++t) {
+                tracks[t] = RecordScanner.TRANSITIONS[tracks[t] * RecordScanner.CLASSES + characterClass];
+            }
+
+            if (RecordScanner.NEWLINE == characterClass) {
+                for (int s = 0; s < RecordScanner.STATES; ++s) {
+                    if (-1 == summary.firstRecordStarts[s] && RecordScanner.RECORD_START == tracks[owners[s]]) {
+                        summary.firstRecordStarts[s] = offset + i + 1;
+                    }
+                }
+            }
+
+            if (1 < trackCount && (RecordScanner.NEWLINE == characterClass
+                    || RecordScanner.DELIMITER == characterClass)) {
+                trackCount = merge(tracks, owners, trackCount);
+            }
+        }
+
+        for (int s = 0; s < RecordScanner.STATES; ++s) {
+            summary.endStates[s] = tracks[owners[s]];
+        }
+
+        return summary;
+    }
+
+    private static int merge(int[] tracks, int[] owners, int trackCount) {
+        for (int t = trackCount - 1; 0 < t; --t) {
+            for (int u = 0; u < t; ++u) {
+                if (tracks[t] != tracks[u]) {
+                    continue;
+                }
+
+                int last = trackCount - 1;
+                for (int s = 0; s < owners.length; ++s) {
+                    if (t == owners[s]) {
+                        owners[s] = u;
+                    } else if (last == owners[s]) {
+                        owners[s] = t;
+                    }
+                }
+
+                tracks[t] = tracks[last];
+                --trackCount;
+
+                break;
+            }
+        }
+
+        return trackCount;
+    }
+
+    static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    static final class Summary {
+        final int[] endStates = new int[RecordScanner.STATES];
+        final long[] firstRecordStarts = new long[RecordScanner.STATES];
+    }
+}
@@ -0,0 +1,39 @@
+package com.polyglotsoft.csv;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the files written by {@link CsvColumnarConverter}, all little endian:
+ * <pre>
+ * header:    MAGIC, VERSION, column count, then per column its CSV column (int) and type (int)
+ * row group: row count (int), then per column: null count (int), null bits (long per 64 rows), statistics,
+ *            values; strings add their dictionary (count, then length and UTF-8 bytes per entry) before the codes
+ * footer:    row group offsets (long each), row group count (int), row count (long),
+ *            footer offset (long), MAGIC
+ * </pre>
+ * Statistics are min and max as longs for int and long columns, as doubles for double columns and as length
+ * prefixed UTF-8 for string columns (length -1 when the group has no value). Row groups and value arrays start on
+ * eight byte boundaries so that they can be viewed as primitive buffers in place.
+ */
+final class ColumnarFormat {
+    static final int MAGIC = 0x43535643;
+    static final int VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    static final int INT = 0;
+    static final int LONG = 1;
+    static final int DOUBLE = 2;
+    static final int STRING = 3;
+
+    private ColumnarFormat() {
+    }
+
+    static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,327 @@
+package com.polyglotsoft.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Running {@link CsvPipeline}. The queue holds one future per chunk in input order, so {@link #take()} returns the
+ * batches in order even though the workers finish them in any order, and a full queue blocks the reader thread.
+ */
+public final class CsvBatches implements Closeable {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final Future<List<String[]>> END = CompletableFuture.completedFuture(null);
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    private final InputStream in;
+    private final boolean closeInput;
+    private final CsvParser parser;
+    private final int batchSize;
+    private final BlockingQueue<Future<List<String[]>>> queue;
+    private final ExecutorService workers;
+    private final Thread reader;
+
+    private volatile boolean closed;
+    private boolean ended;
+
+    CsvBatches(InputStream in, boolean closeInput, CsvParser parser, int batchSize, int queueDepth, int workers,
+            int bufferSize) {
+        int id = SEQUENCE.incrementAndGet();
+
+        this.in = in;
+        this.closeInput = closeInput;
+        this.parser = parser;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueDepth);
+        this.workers = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "csv-pipeline-" + id + "-worker");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        this.reader = new Thread(() -> read(bufferSize), "csv-pipeline-" + id + "-reader");
+
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the next batch of records, waiting for it when it is not parsed yet, or null at the end of the input. A
+     * batch holds up to {@code batchSize} records; it can hold fewer at the end or when a filter drops records.
+     */
+    public List<String[]> take() throws IOException, InterruptedException {
+        if (ended) {
+            return null;
+        }
+
+        Future<List<String[]>> batch = queue.take();
+        if (END == batch) {
+            ended = true;
+
+            return null;
+        }
+
+        try {
+            return batch.get();
+        } catch (ExecutionException e) {
+            ended = true;
+
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Stops the reader and the workers; batches not taken yet are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        ended = true;
+
+        reader.interrupt();
+        workers.shutdownNow();
+        queue.clear();
+
+        if (closeInput) {
+            in.close();
+        }
+    }
+
+    private void read(int bufferSize) {
+        CsvTokenizer tokenizer = parser.getTokenizer();
+        RecordScanner scanner = new RecordScanner(parser.getDelimiter(), parser.getQuotation());
+        byte[] buffer = new byte[bufferSize];
+        byte[] head = null;
+        long headOffset = 0;
+        int length = 0;
+        int scanned = 0;
+        int chunkStart = 0;
+        int recordStart = 0;
+        int records = 0;
+        long discarded = 0;
+        long rows = 0;
+
+        try {
+            for (int read; -1 != (read = in.read(buffer, length, buffer.length - length)); ) {
+                length += read;
+
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+                while (scanned < length) {
+                    int from = scanned;
+                    int end = scanner.findRecordEnd(bytes, scanned, length);
+                    int recordEnd = -1 == end ? length : end;
+
+                    if (null != head) {
+                        // the kept chars hold no line break, so a cut is at the first line break behind them
+                        int cut = tokenizer.resyncs() ? CsvTokenizer.indexOfLineBreak(bytes, from, recordEnd) : -1;
+
+                        if (-1 == cut && -1 == end) {
+                            // drop the rest of the long record as it is scanned
+                            scanned = length;
+                            chunkStart = length;
+                            recordStart = length;
+
+                            break;
+                        }
+
+                        if (-1 != cut) {
+                            scanner.reset();
+                        }
+
+                        submit(head, headOffset, rows++, -1 != cut);
+
+                        head = null;
+                        scanned = (-1 == cut ? end : cut) + 1;
+                        chunkStart = scanned;
+                        recordStart = scanned;
+
+                        continue;
+                    }
+
+                    int cut = tokenizer.findCut(bytes, recordStart, recordEnd);
+                    boolean open = -1 == cut && -1 == end && tokenizer.isLong(bytes, recordStart, length);
+
+                    if (-1 != cut || open) {
+                        // the records before a cut or open long record are handed over first, so it gets a chunk
+                        if (0 < records) {
+                            submit(Arrays.copyOfRange(buffer, chunkStart, recordStart), discarded + chunkStart, rows,
+                                    false);
+
+                            rows += records;
+                            records = 0;
+                        }
+
+                        if (-1 != cut) {
+                            submit(Arrays.copyOfRange(buffer, recordStart, cut), discarded + recordStart, rows++, true);
+
+                            scanner.reset();
+                            scanned = cut + 1;
+                        } else {
+                            // only one char beyond lineLimit is kept, as CsvReader does
+                            head = Arrays.copyOfRange(buffer, recordStart, tokenizer.keep(bytes, recordStart, length));
+                            headOffset = discarded + recordStart;
+                            scanned = length;
+                        }
+
+                        chunkStart = scanned;
+                        recordStart = scanned;
+
+                        continue;
+                    }
+
+                    if (-1 == end) {
+                        scanned = length;
+
+                        break;
+                    }
+
+                    scanned = end + 1;
+
+                    if (recordStart < end && batchSize == ++records) {
+                        submit(Arrays.copyOfRange(buffer, chunkStart, scanned), discarded + chunkStart, rows, false);
+
+                        chunkStart = scanned;
+                        records = 0;
+                        rows += batchSize;
+                    }
+
+                    recordStart = scanned;
+                }
+
+                if (0 == chunkStart && length == buffer.length) {
+                    if (MAX_BUFFER_SIZE == buffer.length) {
+                        if (0 == recordStart) {
+                            throw new IOException("Record at " + discarded + " is larger than " + MAX_BUFFER_SIZE
+                                    + " bytes");
+                        }
+
+                        // the chunk cannot grow any more, so it is handed over with fewer records
+                        submit(Arrays.copyOf(buffer, recordStart), discarded, rows, false);
+
+                        chunkStart = recordStart;
+                        rows += records;
+                        records = 0;
+                    } else {
+                        buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length << 1, MAX_BUFFER_SIZE));
+                    }
+                }
+
+                if (0 < chunkStart) {
+                    // keep the unfinished chunk and make room behind it
+                    System.arraycopy(buffer, chunkStart, buffer, 0, length - chunkStart);
+
+                    discarded += chunkStart;
+                    length -= chunkStart;
+                    scanned -= chunkStart;
+                    recordStart -= chunkStart;
+                    chunkStart = 0;
+                }
+            }
+
+            if (null != head) {
+                submit(head, headOffset, rows, false);
+            } else if (0 < length) {
+                submit(Arrays.copyOf(buffer, length), discarded, rows, false);
+            }
+
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // closed by the consumer
+        } catch (Throwable e) {
+            // whatever stopped the reader has to reach the consumer, or take() would wait forever
+            buffer = null;
+            fail(e);
+        } finally {
+            workers.shutdown();
+
+            if (closeInput) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // the input was read to the end or the pipeline was closed
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands {@code chunk} to a worker; a chunk that is {@code cut} holds one record cut at a line break inside an
+     * unclosed quotation.
+     */
+    private void submit(byte[] chunk, long offset, long firstRow, boolean cut) throws InterruptedException {
+        if (closed) {
+            throw new InterruptedException();
+        }
+
+        queue.put(workers.submit(() -> parse(chunk, offset, firstRow, cut)));
+    }
+
+    private void fail(Throwable e) {
+        CompletableFuture<List<String[]>> failure = new CompletableFuture<>();
+
+        failure.completeExceptionally(e);
+
+        try {
+            queue.put(failure);
+        } catch (InterruptedException ignored) {
+            // closed by the consumer
+        }
+    }
+
+    private List<String[]> parse(byte[] chunk, long offset, long firstRow, boolean cut) {
+        CsvTokenizer tokenizer = parser.getTokenizer();
+        RecordScanner scanner = new RecordScanner(parser.getDelimiter(), parser.getQuotation());
+        CsvFieldIndex index = new CsvFieldIndex();
+        ByteBuffer bytes = ByteBuffer.wrap(chunk);
+        List<String[]> batch = new ArrayList<>(batchSize);
+        int start = 0;
+        long row = firstRow;
+
+        while (start < chunk.length) {
+            int end = scanner.findRecordEnd(bytes, start, chunk.length);
+            if (-1 == end) {
+                end = chunk.length;
+            }
+
+            if (start < end && -1 != tokenizer.check(index, tokenizer.tokenize(bytes, start, end, index), row++,
+                    offset + start, cut)) {
+                batch.add(index.toArray(parser.getStringCache()));
+            }
+
+            start = end + 1;
+        }
+
+        return batch;
+    }
+}
@@ -0,0 +1,253 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fills one primitive array per configured column for up to {@code capacity} records at a time. Numbers are parsed
+ * straight from the reader's buffer, so no String is created for them. Missing and blank fields are stored as 0 and
+ * reported by {@link #isNull(int, int)}. String columns are dictionary encoded: each record gets the code of its value
+ * in a dictionary that starts empty with every {@link #fill(CsvRecordReader)}, so it holds at most {@code capacity}
+ * entries; only missing fields count as null there.
+ */
+public final class CsvColumnBatch {
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int STRING = 3;
+
+    private final int capacity;
+    private final CsvFieldIndex index = new CsvFieldIndex();
+
+    private int[] columns = new int[0];
+    private int[] types = new int[0];
+    private Object[] values = new Object[0];
+    private long[][] nulls = new long[0][];
+    private Dictionary[] dictionaries = new Dictionary[0];
+    private int size;
+
+    public CsvColumnBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+    }
+
+    public CsvColumnBatch addIntColumn(int column) {
+        return addColumn(column, INT, new int[capacity]);
+    }
+
+    public CsvColumnBatch addLongColumn(int column) {
+        return addColumn(column, LONG, new long[capacity]);
+    }
+
+    public CsvColumnBatch addDoubleColumn(int column) {
+        return addColumn(column, DOUBLE, new double[capacity]);
+    }
+
+    public CsvColumnBatch addStringColumn(int column) {
+        return addColumn(column, STRING, new int[capacity]);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of records held by the last {@link #fill(CsvRecordReader)}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Reads up to {@code capacity} records from {@code reader}, returning how many were read; 0 means the end of
+     * the input.
+     */
+    public int fill(CsvRecordReader reader) throws IOException {
+        for (long[] bits : nulls) {
+            Arrays.fill(bits, 0);
+        }
+
+        for (Dictionary dictionary : dictionaries) {
+            if (null != dictionary) {
+                dictionary.clear();
+            }
+        }
+
+        size = 0;
+        while (size < capacity && reader.readRecord(index)) {
+            for (int i = 0; i < columns.length; ++i) {
+                int column = columns[i];
+
+                // a projection keeps the columns past the end of a short record as missing fields
+                if (index.size() <= column || index.isMissing(column)
+                        || (STRING != types[i] && index.isBlank(column))) {
+                    nulls[i][size >>> 6] |= 1L << size;
+
+                    setZero(i);
+
+                    continue;
+                }
+
+                switch (types[i]) {
+                    case INT:
+                        ((int[]) values[i])[size] = index.getInt(column);
+                        break;
+                    case LONG:
+                        ((long[]) values[i])[size] = index.getLong(column);
+                        break;
+                    case DOUBLE:
+                        ((double[]) values[i])[size] = index.getDouble(column);
+                        break;
+                    default:
+                        ((int[]) values[i])[size] = dictionaries[i].encode(index.getString(column));
+                        break;
+                }
+            }
+
+            ++size;
+        }
+
+        return size;
+    }
+
+    public int[] getInts(int column) {
+        return (int[]) values[slot(column, INT)];
+    }
+
+    public long[] getLongs(int column) {
+        return (long[]) values[slot(column, LONG)];
+    }
+
+    public double[] getDoubles(int column) {
+        return (double[]) values[slot(column, DOUBLE)];
+    }
+
+    /**
+     * Returns the dictionary codes of a string column; {@link #getDictionary(int)} maps them back to values.
+     */
+    public int[] getCodes(int column) {
+        return (int[]) values[slot(column, STRING)];
+    }
+
+    /**
+     * Returns the distinct values of a string column in the last batch, indexed by code.
+     */
+    public String[] getDictionary(int column) {
+        return dictionaries[slot(column, STRING)].toArray();
+    }
+
+    public String getString(int column, int row) {
+        int slot = slot(column, STRING);
+
+        return isNull(column, row) ? null : dictionaries[slot].values[((int[]) values[slot])[row]];
+    }
+
+    public boolean isNull(int column, int row) {
+        if (row < 0 || size <= row) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+
+        return 0 != (nulls[slot(column, -1)][row >>> 6] & (1L << row));
+    }
+
+    private CsvColumnBatch addColumn(int column, int type, Object array) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must not be negative: " + column);
+        }
+
+        for (int existing : columns) {
+            if (existing == column) {
+                throw new IllegalArgumentException("column already added: " + column);
+            }
+        }
+
+        int length = columns.length;
+
+        columns = Arrays.copyOf(columns, length + 1);
+        types = Arrays.copyOf(types, length + 1);
+        values = Arrays.copyOf(values, length + 1);
+        nulls = Arrays.copyOf(nulls, length + 1);
+        dictionaries = Arrays.copyOf(dictionaries, length + 1);
+
+        columns[length] = column;
+        types[length] = type;
+        values[length] = array;
+        nulls[length] = new long[(capacity + 63) >>> 6];
+        dictionaries[length] = STRING == type ? new Dictionary() : null;
+
+        return this;
+    }
+
+    private void setZero(int slot) {
+        switch (types[slot]) {
+            case INT:
+                ((int[]) values[slot])[size] = 0;
+                break;
+            case LONG:
+                ((long[]) values[slot])[size] = 0;
+                break;
+            case DOUBLE:
+                ((double[]) values[slot])[size] = 0;
+                break;
+            default:
+                ((int[]) values[slot])[size] = 0;
+                break;
+        }
+    }
+
+    private int slot(int column, int type) {
+        for (int i = 0; i < columns.length; ++i) {
+            if (columns[i] != column) {
+                continue;
+            }
+
+            if (-1 != type && types[i] != type) {
+                throw new IllegalArgumentException("column " + column + " has a different type");
+            }
+
+            return i;
+        }
+
+        throw new IllegalArgumentException("column not added: " + column);
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+
+        int encode(String value) {
+            if (null == value) {
+                throw new IllegalArgumentException("null is not a dictionary value");
+            }
+
+            Integer code = codes.get(value);
+
+            if (null == code) {
+                code = codes.size();
+
+                if (values.length == code) {
+                    values = Arrays.copyOf(values, code << 1);
+                }
+
+                values[code] = value;
+                codes.put(value, code);
+            }
+
+            return code;
+        }
+
+        String[] toArray() {
+            return Arrays.copyOf(values, codes.size());
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, codes.size(), null);
+            codes.clear();
+        }
+    }
+}
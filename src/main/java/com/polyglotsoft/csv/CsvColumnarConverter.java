@@ -0,0 +1,366 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Converts CSV records into a binary columnar file that {@link CsvColumnarReader} maps back without parsing. Records
+ * are read through a {@link CsvColumnBatch} of {@code rowGroupSize} rows and every batch is written as one row group
+ * with min and max statistics per column, so memory stays bounded by one row group whatever the size of the input.
+ * Numeric columns are stored as primitive arrays and string columns as a dictionary plus one code per row.
+ */
+public final class CsvColumnarConverter {
+    public static final int ROW_GROUP_SIZE = 64 * 1024;
+
+    private final int rowGroupSize;
+
+    private int[] columns = new int[0];
+    private int[] types = new int[0];
+
+    public CsvColumnarConverter(int rowGroupSize) {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("rowGroupSize must be positive: " + rowGroupSize);
+        }
+
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    public CsvColumnarConverter() {
+        this(ROW_GROUP_SIZE);
+    }
+
+    public CsvColumnarConverter addIntColumn(int column) {
+        return addColumn(column, ColumnarFormat.INT);
+    }
+
+    public CsvColumnarConverter addLongColumn(int column) {
+        return addColumn(column, ColumnarFormat.LONG);
+    }
+
+    public CsvColumnarConverter addDoubleColumn(int column) {
+        return addColumn(column, ColumnarFormat.DOUBLE);
+    }
+
+    public CsvColumnarConverter addStringColumn(int column) {
+        return addColumn(column, ColumnarFormat.STRING);
+    }
+
+    /**
+     * Converts a UTF-8 CSV file read with {@code parser}, returning the number of rows written.
+     */
+    public long convert(Path input, CsvParser parser, Path output) throws IOException {
+        try (MappedCsvReader reader = new MappedCsvReader(input, parser)) {
+            return convert(reader, output);
+        }
+    }
+
+    /**
+     * Converts the remaining records of {@code reader}, returning the number of rows written. The reader is not
+     * closed.
+     */
+    public long convert(CsvRecordReader reader, Path output) throws IOException {
+        CsvColumnBatch batch = new CsvColumnBatch(rowGroupSize);
+        for (int i = 0; i < columns.length; ++i) {
+            switch (types[i]) {
+                case ColumnarFormat.INT:
+                    batch.addIntColumn(columns[i]);
+                    break;
+                case ColumnarFormat.LONG:
+                    batch.addLongColumn(columns[i]);
+                    break;
+                case ColumnarFormat.DOUBLE:
+                    batch.addDoubleColumn(columns[i]);
+                    break;
+                default:
+                    batch.addStringColumn(columns[i]);
+                    break;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            GroupWriter writer = new GroupWriter(channel);
+            long[] offsets = new long[16];
+            int groups = 0;
+            long rows = 0;
+
+            writer.writeHeader();
+
+            while (0 < batch.fill(reader)) {
+                if (offsets.length == groups) {
+                    offsets = Arrays.copyOf(offsets, groups << 1);
+                }
+
+                offsets[groups++] = writer.writeGroup(batch);
+                rows += batch.size();
+            }
+
+            writer.writeFooter(offsets, groups, rows);
+
+            return rows;
+        }
+    }
+
+    private CsvColumnarConverter addColumn(int column, int type) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must not be negative: " + column);
+        }
+
+        for (int existing : columns) {
+            if (existing == column) {
+                throw new IllegalArgumentException("column already added: " + column);
+            }
+        }
+
+        columns = Arrays.copyOf(columns, columns.length + 1);
+        types = Arrays.copyOf(types, types.length + 1);
+        columns[columns.length - 1] = column;
+        types[types.length - 1] = type;
+
+        return this;
+    }
+
+    /**
+     * Lays out one section at a time in a reusable buffer and appends it to the channel.
+     */
+    private final class GroupWriter {
+        private final FileChannel channel;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ColumnarFormat.ORDER);
+        private long position;
+
+        GroupWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeHeader() throws IOException {
+            ensure(3 * Integer.BYTES + 2 * Integer.BYTES * columns.length + Long.BYTES);
+            buffer.putInt(ColumnarFormat.MAGIC).putInt(ColumnarFormat.VERSION).putInt(columns.length);
+
+            for (int i = 0; i < columns.length; ++i) {
+                buffer.putInt(columns[i]).putInt(types[i]);
+            }
+
+            pad();
+            drain();
+        }
+
+        long writeGroup(CsvColumnBatch batch) throws IOException {
+            long start = position;
+            int rows = batch.size();
+
+            ensure(Integer.BYTES);
+            buffer.putInt(rows);
+
+            for (int i = 0; i < columns.length; ++i) {
+                writeNulls(batch, columns[i], rows);
+
+                switch (types[i]) {
+                    case ColumnarFormat.INT:
+                        writeInts(batch, columns[i], rows);
+                        break;
+                    case ColumnarFormat.LONG:
+                        writeLongs(batch, columns[i], rows);
+                        break;
+                    case ColumnarFormat.DOUBLE:
+                        writeDoubles(batch, columns[i], rows);
+                        break;
+                    default:
+                        writeStrings(batch, columns[i], rows);
+                        break;
+                }
+            }
+
+            pad();
+            drain();
+
+            return start;
+        }
+
+        void writeFooter(long[] offsets, int groups, long rows) throws IOException {
+            long footer = position;
+
+            ensure(Long.BYTES * groups + Integer.BYTES + Long.BYTES + ColumnarFormat.TRAILER_SIZE);
+            for (int i = 0; i < groups; ++i) {
+                buffer.putLong(offsets[i]);
+            }
+
+            buffer.putInt(groups).putLong(rows).putLong(footer).putInt(ColumnarFormat.MAGIC);
+            drain();
+        }
+
+        private void writeNulls(CsvColumnBatch batch, int column, int rows) throws IOException {
+            int words = (rows + 63) >>> 6;
+            int nullCount = 0;
+
+            ensure(Integer.BYTES + Long.BYTES + Long.BYTES * words);
+            int countAt = buffer.position();
+            buffer.putInt(0);
+            pad();
+
+            for (int word = 0; word < words; ++word) {
+                long bits = 0;
+
+                for (int row = word << 6; row < Math.min(rows, (word + 1) << 6); ++row) {
+                    if (batch.isNull(column, row)) {
+                        bits |= 1L << row;
+                        ++nullCount;
+                    }
+                }
+
+                buffer.putLong(bits);
+            }
+
+            buffer.putInt(countAt, nullCount);
+        }
+
+        private void writeInts(CsvColumnBatch batch, int column, int rows) throws IOException {
+            int[] values = batch.getInts(column);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+
+            for (int row = 0; row < rows; ++row) {
+                if (!batch.isNull(column, row)) {
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+            }
+
+            ensure(2 * Long.BYTES + Long.BYTES + Integer.BYTES * rows);
+            buffer.putLong(min).putLong(max);
+            pad();
+            buffer.asIntBuffer().put(values, 0, rows);
+            skip(Integer.BYTES * rows);
+        }
+
+        private void writeLongs(CsvColumnBatch batch, int column, int rows) throws IOException {
+            long[] values = batch.getLongs(column);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+
+            for (int row = 0; row < rows; ++row) {
+                if (!batch.isNull(column, row)) {
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+            }
+
+            ensure(2 * Long.BYTES + Long.BYTES + Long.BYTES * rows);
+            buffer.putLong(min).putLong(max);
+            pad();
+            buffer.asLongBuffer().put(values, 0, rows);
+            skip(Long.BYTES * rows);
+        }
+
+        private void writeDoubles(CsvColumnBatch batch, int column, int rows) throws IOException {
+            double[] values = batch.getDoubles(column);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (int row = 0; row < rows; ++row) {
+                if (!batch.isNull(column, row)) {
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+            }
+
+            ensure(2 * Double.BYTES + Long.BYTES + Double.BYTES * rows);
+            buffer.putDouble(min).putDouble(max);
+            pad();
+            buffer.asDoubleBuffer().put(values, 0, rows);
+            skip(Double.BYTES * rows);
+        }
+
+        private void writeStrings(CsvColumnBatch batch, int column, int rows) throws IOException {
+            String[] dictionary = batch.getDictionary(column);
+            byte[][] encoded = new byte[dictionary.length][];
+            int min = -1;
+            int max = -1;
+            int size = Integer.BYTES;
+
+            for (int code = 0; code < dictionary.length; ++code) {
+                encoded[code] = dictionary[code].getBytes(StandardCharsets.UTF_8);
+                size += Integer.BYTES + encoded[code].length;
+
+                if (-1 == min || dictionary[code].compareTo(dictionary[min]) < 0) {
+                    min = code;
+                }
+
+                if (-1 == max || 0 < dictionary[code].compareTo(dictionary[max])) {
+                    max = code;
+                }
+            }
+
+            putString(-1 == min ? null : encoded[min]);
+            putString(-1 == max ? null : encoded[max]);
+
+            ensure(size);
+            buffer.putInt(dictionary.length);
+            for (byte[] entry : encoded) {
+                buffer.putInt(entry.length).put(entry);
+            }
+
+            ensure(Long.BYTES + Integer.BYTES * rows);
+            pad();
+            buffer.asIntBuffer().put(batch.getCodes(column), 0, rows);
+            skip(Integer.BYTES * rows);
+        }
+
+        private void putString(byte[] bytes) throws IOException {
+            ensure(Integer.BYTES + (null == bytes ? 0 : bytes.length));
+
+            if (null == bytes) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+
+        private void skip(int bytes) {
+            ((Buffer) buffer).position(buffer.position() + bytes);
+        }
+
+        /**
+         * Zero fills up to the next eight byte boundary of the file.
+         */
+        private void pad() {
+            long end = position + buffer.position();
+
+            for (long i = end; i < ColumnarFormat.align(end); ++i) {
+                buffer.put((byte) 0);
+            }
+        }
+
+        /**
+         * Makes room for {@code bytes} more bytes, writing out what is buffered first and growing the buffer only
+         * when a single section does not fit.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            drain();
+
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() << 1)).order(ColumnarFormat.ORDER);
+            }
+        }
+
+        private void drain() throws IOException {
+            ((Buffer) buffer).flip();
+
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+
+            ((Buffer) buffer).clear();
+        }
+    }
+}
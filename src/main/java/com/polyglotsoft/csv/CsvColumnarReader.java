@@ -0,0 +1,119 @@
+package com.polyglotsoft.csv;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file written by {@link CsvColumnarConverter}. Only the header and the footer are read when the file is
+ * opened; each row group is memory mapped when asked for, and its columns are returned as views of the mapped bytes.
+ * The statistics of a row group can be checked before touching its values, so a scan can skip whole groups.
+ */
+public final class CsvColumnarReader implements Closeable {
+    private final FileChannel channel;
+    private final int[] columns;
+    private final int[] types;
+    private final long[] offsets;
+    private final long rowCount;
+    private final long footer;
+
+    public CsvColumnarReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            if (size < 3 * Integer.BYTES + ColumnarFormat.TRAILER_SIZE) {
+                throw new IOException("Not a columnar file: " + path);
+            }
+
+            ByteBuffer trailer = read(size - ColumnarFormat.TRAILER_SIZE, ColumnarFormat.TRAILER_SIZE);
+            ByteBuffer header = read(0, 3 * Integer.BYTES);
+            if (ColumnarFormat.MAGIC != trailer.getInt(Long.BYTES) || ColumnarFormat.MAGIC != header.getInt(0)) {
+                throw new IOException("Not a columnar file: " + path);
+            }
+
+            if (ColumnarFormat.VERSION != header.getInt(Integer.BYTES)) {
+                throw new IOException("Unsupported columnar file version: " + header.getInt(Integer.BYTES));
+            }
+
+            int count = header.getInt(2 * Integer.BYTES);
+            ByteBuffer descriptors = read(3 * Integer.BYTES, 2 * Integer.BYTES * count);
+            this.columns = new int[count];
+            this.types = new int[count];
+            for (int i = 0; i < count; ++i) {
+                columns[i] = descriptors.getInt();
+                types[i] = descriptors.getInt();
+            }
+
+            this.footer = trailer.getLong(0);
+            ByteBuffer totals = read(size - ColumnarFormat.TRAILER_SIZE - Integer.BYTES - Long.BYTES,
+                    Integer.BYTES + Long.BYTES);
+            int groups = totals.getInt();
+            this.rowCount = totals.getLong();
+
+            ByteBuffer groupOffsets = read(footer, Long.BYTES * groups);
+            this.offsets = new long[groups];
+            for (int i = 0; i < groups; ++i) {
+                offsets[i] = groupOffsets.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the CSV columns stored in the file, in file order.
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Maps row group {@code group}. The group stays readable after this reader is closed, as long as it is reachable.
+     */
+    public CsvRowGroup readRowGroup(int group) throws IOException {
+        long start = offsets[group];
+        long end = group + 1 < offsets.length ? offsets[group + 1] : footer;
+        if (Integer.MAX_VALUE < end - start) {
+            throw new IOException("Row group " + group + " is larger than " + Integer.MAX_VALUE + " bytes");
+        }
+
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).order(ColumnarFormat.ORDER);
+
+        return new CsvRowGroup(bytes, columns, types);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ColumnarFormat.ORDER);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Columnar file ends at " + (position + buffer.position()));
+            }
+        }
+
+        ((Buffer) buffer).flip();
+
+        return buffer;
+    }
+}
@@ -0,0 +1,34 @@
+package com.polyglotsoft.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Result of {@link CsvDialectDetector}: a parser for the detected dialect and the sample the detection consumed.
+ */
+public final class CsvDetection {
+    private final CsvParser parser;
+    private final byte[] sample;
+
+    CsvDetection(CsvParser parser, byte[] sample) {
+        this.parser = parser;
+        this.sample = sample;
+    }
+
+    public CsvParser getParser() {
+        return parser;
+    }
+
+    public byte[] getSample() {
+        return sample.clone();
+    }
+
+    /**
+     * Returns a stream that reads the sample again and then the rest of {@code in}, the stream the sample was taken
+     * from.
+     */
+    public InputStream replay(InputStream in) {
+        return new SequenceInputStream(new ByteArrayInputStream(sample), in);
+    }
+}
@@ -0,0 +1,302 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Detects the delimiter and quotation of a file from a bounded byte sample. All candidate dialects are scored in a
+ * single pass over the sample: the winner splits the most lines into the same number of fields, weighted by that
+ * number. Optionally remembers results, keyed by path, size and modification time for files and by a fingerprint of
+ * the first line for streams, so files from the same producer are detected once.
+ */
+public final class CsvDialectDetector {
+    public static final int SAMPLE_SIZE = 64 * 1024;
+
+    private static final char[] DELIMITERS = {CsvParser.COMMA, CsvParser.SEMICOLON, CsvParser.TAB, CsvParser.PIPE};
+    private static final char[] QUOTATIONS = {CsvParser.DOUBLE_QUOTES, CsvParser.SINGLE_QUOTES};
+    private static final int FINGERPRINT_LENGTH = 1024;
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int sampleSize;
+    private final int lineLimit;
+    private final int columnLimit;
+    private final Map<Object, CsvParser> cache;
+
+    /**
+     * @param cacheSize number of detected dialects to remember, 0 disables the cache
+     */
+    public CsvDialectDetector(int sampleSize, int lineLimit, int columnLimit, int cacheSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+        }
+
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative: " + cacheSize);
+        }
+
+        this.sampleSize = sampleSize;
+        this.lineLimit = lineLimit;
+        this.columnLimit = columnLimit;
+        this.cache = 0 == cacheSize ? null : new LinkedHashMap<Object, CsvParser>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CsvParser> eldest) {
+                return cacheSize < size();
+            }
+        };
+    }
+
+    public CsvDialectDetector() {
+        this(SAMPLE_SIZE, CsvParser.LINE_LIMIT, CsvParser.COLUMN_LIMIT, 0);
+    }
+
+    /**
+     * Reads up to {@code sampleSize} bytes from {@code in} and detects their dialect. The stream is not closed; use
+     * {@link CsvDetection#replay(InputStream)} with it to read the input from the start.
+     */
+    public CsvDetection detect(InputStream in) throws IOException {
+        // one byte more than the sample tells whether the sample holds the whole input; small inputs are the common
+        // case, so the buffer only grows as far as the input does
+        int capacity = sampleSize + 1;
+        byte[] sample = new byte[Math.min(capacity, INITIAL_BUFFER_SIZE)];
+        int length = 0;
+
+        for (int read; -1 != (read = in.read(sample, length, sample.length - length)); ) {
+            length += read;
+
+            if (length == sample.length) {
+                if (length == capacity) {
+                    break;
+                }
+
+                sample = Arrays.copyOf(sample, (int) Math.min(capacity, (long) length << 1));
+            }
+        }
+
+        return detect(Arrays.copyOf(sample, length), length <= sampleSize, null);
+    }
+
+    /**
+     * Detects the dialect of the UTF-8 file at {@code path}. The file is not kept open, and the returned sample is
+     * empty when the result comes from the cache.
+     */
+    public CsvDetection detect(Path path) throws IOException {
+        Object key = null;
+        if (null != cache) {
+            key = new FileKey(path.toAbsolutePath().normalize(), Files.size(path),
+                    Files.getLastModifiedTime(path).toMillis());
+
+            CsvParser parser = lookUp(key);
+            if (null != parser) {
+                return new CsvDetection(parser, EMPTY);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(sampleSize, channel.size()));
+
+            while (buffer.hasRemaining() && -1 != channel.read(buffer)) {
+                // read until the sample is full
+            }
+
+            byte[] sample = Arrays.copyOf(buffer.array(), buffer.position());
+
+            return detect(sample, channel.size() <= sample.length, key);
+        }
+    }
+
+    private CsvDetection detect(byte[] sample, boolean complete, Object fileKey) {
+        Object key = fileKey;
+        if (null != cache && null == key) {
+            key = fingerprint(sample);
+
+            CsvParser parser = null == key ? null : lookUp(key);
+            if (null != parser) {
+                return new CsvDetection(parser, sample);
+            }
+        }
+
+        CsvParser parser = analyze(sample, complete);
+
+        if (null != key) {
+            synchronized (cache) {
+                cache.put(key, parser);
+            }
+        }
+
+        return new CsvDetection(parser, sample);
+    }
+
+    private CsvParser lookUp(Object key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Counts, for every delimiter and quotation pair at once, the delimiters outside quotations on each line, and
+     * picks the pair whose lines most often have as many delimiters as the first one.
+     */
+    private CsvParser analyze(byte[] sample, boolean complete) {
+        int[] delimiterOf = new int[256];
+        Arrays.fill(delimiterOf, -1);
+        for (int d = 0; d < DELIMITERS.length; ++d) {
+            delimiterOf[DELIMITERS[d]] = d;
+        }
+
+        int pairs = QUOTATIONS.length * DELIMITERS.length;
+        int[] counts = new int[pairs];
+        int[] expected = new int[pairs];
+        int[] lines = new int[pairs];
+        int[] matching = new int[pairs];
+        boolean[] quoted = new boolean[QUOTATIONS.length];
+        boolean[] started = new boolean[QUOTATIONS.length];
+
+        Arrays.fill(expected, -1);
+
+        for (byte b : sample) {
+            boolean newline = CsvParser.CR == b || CsvParser.LF == b;
+            int d = delimiterOf[b & 0xFF];
+
+            for (int q = 0; q < QUOTATIONS.length; ++q) {
+                if (QUOTATIONS[q] == b) {
+                    quoted[q] = !quoted[q];
+                    started[q] = true;
+                } else if (quoted[q]) {
+                    continue;
+                } else if (newline) {
+                    // empty lines are skipped by the readers, so they do not count
+                    if (started[q]) {
+                        endLine(q, counts, expected, lines, matching);
+                    }
+
+                    started[q] = false;
+                } else {
+                    started[q] = true;
+
+                    if (-1 != d) {
+                        ++counts[q * DELIMITERS.length + d];
+                    }
+                }
+            }
+        }
+
+        for (int q = 0; q < QUOTATIONS.length; ++q) {
+            // a cut sample ends in the middle of a line, which would skew the counts
+            if (complete && started[q]) {
+                endLine(q, counts, expected, lines, matching);
+            }
+        }
+
+        int best = 0;
+        double bestScore = 0;
+        for (int d = 0; d < DELIMITERS.length; ++d) {
+            for (int q = 0; q < QUOTATIONS.length; ++q) {
+                int pair = q * DELIMITERS.length + d;
+
+                if (0 == lines[pair]) {
+                    continue;
+                }
+
+                double score = (double) matching[pair] / lines[pair] * expected[pair];
+                if (bestScore < score) {
+                    best = pair;
+                    bestScore = score;
+                }
+            }
+        }
+
+        return new CsvParser(DELIMITERS[best % DELIMITERS.length], QUOTATIONS[best / DELIMITERS.length], lineLimit,
+                columnLimit);
+    }
+
+    private static void endLine(int q, int[] counts, int[] expected, int[] lines, int[] matching) {
+        for (int pair = q * DELIMITERS.length; pair < (q + 1) * DELIMITERS.length; ++pair) {
+            if (-1 == expected[pair]) {
+                expected[pair] = counts[pair];
+            }
+
+            if (expected[pair] == counts[pair]) {
+                ++matching[pair];
+            }
+
+            ++lines[pair];
+            counts[pair] = 0;
+        }
+    }
+
+    /**
+     * Files from the same producer usually share their header, so the first line identifies the dialect. Leading empty
+     * lines are skipped; a sample without any line has no fingerprint and is not cached, or every such input would
+     * share one dialect.
+     */
+    private static Object fingerprint(byte[] sample) {
+        int start = 0;
+        while (start < sample.length && (CsvParser.CR == sample[start] || CsvParser.LF == sample[start])) {
+            ++start;
+        }
+
+        int end = start;
+        while (end < sample.length && end - start < FINGERPRINT_LENGTH && CsvParser.CR != sample[end]
+                && CsvParser.LF != sample[end]) {
+            ++end;
+        }
+
+        return start == end ? null : new Fingerprint(Arrays.copyOfRange(sample, start, end));
+    }
+
+    private static final class FileKey {
+        private final Path path;
+        private final long size;
+        private final long modified;
+
+        FileKey(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileKey)) {
+                return false;
+            }
+
+            FileKey other = (FileKey) o;
+
+            return path.equals(other.path) && size == other.size && modified == other.modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, modified);
+        }
+    }
+
+    private static final class Fingerprint {
+        private final byte[] firstLine;
+
+        Fingerprint(byte[] firstLine) {
+            this.firstLine = firstLine;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Fingerprint && Arrays.equals(firstLine, ((Fingerprint) o).firstLine);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(firstLine);
+        }
+    }
+}
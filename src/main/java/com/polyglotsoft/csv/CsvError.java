@@ -0,0 +1,41 @@
+package com.polyglotsoft.csv;
+
+/**
+ * One malformed record. The row counts the non-empty records the reader has seen, starting at 0, and the offset is
+ * where the record starts: in bytes for byte input and in chars for text input. Both are -1 when a single line was
+ * parsed outside of a reader.
+ */
+public final class CsvError {
+    public enum Reason {
+        UNCLOSED_QUOTATION,
+        LINE_TOO_LONG,
+        TOO_MANY_COLUMNS
+    }
+
+    private final long row;
+    private final long offset;
+    private final Reason reason;
+
+    public CsvError(long row, long offset, Reason reason) {
+        this.row = row;
+        this.offset = offset;
+        this.reason = reason;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return reason + " in row " + row + " at offset " + offset;
+    }
+}
@@ -0,0 +1,27 @@
+package com.polyglotsoft.csv;
+
+/**
+ * What a parser does with a malformed record, see {@link CsvParser#withErrorPolicy(CsvErrorPolicy, CsvErrorSink)}. A
+ * record is malformed when it ends inside a quotation, is longer than {@code lineLimit} or has more fields than
+ * {@code columnLimit}. Every policy reports the record to the error sink first.
+ */
+public enum CsvErrorPolicy {
+    /**
+     * Throw a {@link CsvFormatException}.
+     */
+    STRICT,
+
+    /**
+     * Keep what could be parsed. Readers cut a record longer than {@code lineLimit} chars at its first line break,
+     * wherever that is, and go on from there, so one stray quotation cannot swallow the rest of the input. {@link CsvReader},
+     * {@link MappedCsvReader}, {@link CsvTailReader} and {@link CsvPipeline} resynchronize this way; streams and
+     * {@link ParallelCsvParser} then read the file as one range instead of splitting it, and {@link CsvRowIndex}
+     * rejects such a parser.
+     */
+    LENIENT,
+
+    /**
+     * Drop the record like a filtered one; readers resynchronize as in {@link #LENIENT}.
+     */
+    SKIP
+}
@@ -0,0 +1,60 @@
+package com.polyglotsoft.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the first {@code capacity} errors and counts all of them, so a very dirty input cannot exhaust memory. Safe
+ * to share between the threads of a parallel parse.
+ */
+public class CsvErrorSink {
+    public static final int CAPACITY = 1000;
+
+    private final int capacity;
+    private final List<CsvError> errors = new ArrayList<>();
+
+    private long errorCount;
+
+    public CsvErrorSink(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+
+        this.capacity = capacity;
+    }
+
+    public CsvErrorSink() {
+        this(CAPACITY);
+    }
+
+    public synchronized void add(CsvError error) {
+        ++errorCount;
+
+        if (errors.size() < capacity) {
+            errors.add(error);
+        }
+    }
+
+    /**
+     * Returns the kept errors in the order they were added.
+     */
+    public synchronized List<CsvError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns true when more errors were reported than kept.
+     */
+    public synchronized boolean isOverflowed() {
+        return errors.size() < errorCount;
+    }
+
+    public synchronized void clear() {
+        errors.clear();
+        errorCount = 0;
+    }
+}
@@ -0,0 +1,639 @@
+package com.polyglotsoft.csv;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable result of a parse: start and end offsets of every field in the parsed buffer plus a flag for fields whose
+ * doubled quotations still have to be collapsed. Offsets are only valid until the next parse into the same index.
+ * A projected column absent from the line is missing: its offsets are -1 and its String is null.
+ */
+public final class CsvFieldIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int REPLACEMENT = 0xFFFD;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private char[] chars;
+    private ByteBuffer bytes;
+    private ByteBuffer view;
+    private char quotation;
+    private int size;
+    private int[] offsets;
+    private boolean[] escaped;
+    private char[] ownedChars;
+    private char[] charScratch;
+    private byte[] byteScratch;
+    private int nextPosition;
+    private boolean lineTruncated;
+    private boolean columnTruncated;
+    private boolean unclosed;
+
+    public CsvFieldIndex(int capacity) {
+        capacity = Math.max(1, capacity);
+
+        offsets = new int[capacity << 1];
+        escaped = new boolean[capacity];
+    }
+
+    public CsvFieldIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    void reset(char[] chars, char quotation) {
+        this.chars = chars;
+        this.bytes = null;
+        this.view = null;
+        this.quotation = quotation;
+        this.size = 0;
+        this.lineTruncated = false;
+        this.columnTruncated = false;
+        this.unclosed = false;
+    }
+
+    void reset(ByteBuffer bytes, char quotation) {
+        if (this.bytes != bytes) {
+            this.bytes = bytes;
+            this.view = null;
+        }
+
+        this.chars = null;
+        this.quotation = quotation;
+        this.size = 0;
+        this.lineTruncated = false;
+        this.columnTruncated = false;
+        this.unclosed = false;
+    }
+
+    /**
+     * Returns a buffer of at least {@code length} chars owned by this index. It grows by doubling but never beyond
+     * {@code limit}, so an index reused for many lines settles at the longest line it has to hold.
+     */
+    char[] ownedChars(int length, int limit) {
+        if (null == ownedChars || ownedChars.length < length) {
+            int capacity = Math.max(INITIAL_CAPACITY << 4, null == ownedChars ? 0 : ownedChars.length << 1);
+
+            ownedChars = new char[Math.max(length, Math.min(capacity, limit))];
+        }
+
+        return ownedChars;
+    }
+
+    void add(int start, int end, boolean escaped) {
+        if (size == this.escaped.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length << 1);
+            this.escaped = Arrays.copyOf(this.escaped, this.escaped.length << 1);
+        }
+
+        offsets[size << 1] = start;
+        offsets[(size << 1) + 1] = end;
+        this.escaped[size] = escaped;
+
+        ++size;
+    }
+
+    void addMissing() {
+        add(-1, -1, false);
+    }
+
+    void set(int field, int start, int end, boolean escaped) {
+        offsets[field << 1] = start;
+        offsets[(field << 1) + 1] = end;
+        this.escaped[field] = escaped;
+    }
+
+    void truncate(int size) {
+        if (size < this.size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Source chars of the last parse, or null when bytes were parsed.
+     */
+    char[] getSource() {
+        return chars;
+    }
+
+    /**
+     * Writes the unescaped, decoded field to {@code target}, which needs room for {@code getEnd - getStart} chars,
+     * and returns the number of chars written.
+     */
+    int getChars(int field, char[] target) {
+        int end = getEnd(field);
+        int length = 0;
+
+        for (int i = getStart(field); i < end; i = nextPosition) {
+            int codePoint = codePointAt(field, i, end);
+
+            if (Character.isBmpCodePoint(codePoint)) {
+                target[length++] = (char) codePoint;
+            } else {
+                target[length++] = Character.highSurrogate(codePoint);
+                target[length++] = Character.lowSurrogate(codePoint);
+            }
+        }
+
+        return length;
+    }
+
+    void setLineTruncated() {
+        lineTruncated = true;
+    }
+
+    void setColumnTruncated() {
+        columnTruncated = true;
+    }
+
+    void setUnclosed() {
+        unclosed = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getStart(int field) {
+        checkField(field);
+
+        return offsets[field << 1];
+    }
+
+    public int getEnd(int field) {
+        checkField(field);
+
+        return offsets[(field << 1) + 1];
+    }
+
+    /**
+     * Returns true when the line was longer than {@code lineLimit} and only its beginning was parsed.
+     */
+    public boolean isLineTruncated() {
+        return lineTruncated;
+    }
+
+    /**
+     * Returns true when the line had more fields than {@code columnLimit} and the rest were dropped.
+     */
+    public boolean isColumnTruncated() {
+        return columnTruncated;
+    }
+
+    /**
+     * Returns true when a quotation was left open, so the rest of the line was split on the delimiter alone.
+     */
+    public boolean hasUnclosedQuotation() {
+        return unclosed;
+    }
+
+    /**
+     * Returns true when the field is a projected column that the line does not have.
+     */
+    public boolean isMissing(int field) {
+        return getStart(field) < 0;
+    }
+
+    public boolean isEscaped(int field) {
+        checkField(field);
+
+        return escaped[field];
+    }
+
+    public String getString(int field) {
+        int start = getStart(field);
+        int end = getEnd(field);
+
+        if (start < 0) {
+            return null;
+        }
+
+        if (start == end) {
+            return "";
+        }
+
+        if (null != chars) {
+            if (!escaped[field]) {
+                return new String(chars, start, end - start);
+            }
+
+            char[] target = charScratch(end - start);
+
+            return new String(target, 0, unescape(chars, start, end, target));
+        }
+
+        if (!escaped[field] && bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] target = byteScratch(end - start);
+        int length;
+        if (escaped[field]) {
+            length = unescape(start, end, target);
+        } else {
+            if (null == view) {
+                view = bytes.duplicate();
+            }
+
+            ((Buffer) view).limit(end).position(start);
+            view.get(target, 0, end - start);
+
+            length = end - start;
+        }
+
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public String[] toArray() {
+        return toArray(null);
+    }
+
+    /**
+     * Same as {@link #toArray()}, taking repeated values from {@code cache} when it is not null.
+     */
+    public String[] toArray(CsvStringCache cache) {
+        String[] result = new String[size];
+
+        for (int i = 0; i < size; ++i) {
+            result[i] = null == cache ? getString(i) : cache.getString(this, i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares the unescaped field with {@code value} without creating a String.
+     */
+    public boolean contentEquals(int field, CharSequence value) {
+        return compare(field, value, false);
+    }
+
+    /**
+     * Returns true when the unescaped field starts with {@code prefix}, without creating a String.
+     */
+    public boolean startsWith(int field, CharSequence prefix) {
+        return compare(field, prefix, true);
+    }
+
+    /**
+     * Returns the same value as {@code getString(field).hashCode()} without creating a String.
+     */
+    public int getHashCode(int field) {
+        int end = getEnd(field);
+        int hash = 0;
+
+        for (int i = getStart(field); i < end; i = nextPosition) {
+            int codePoint = codePointAt(field, i, end);
+
+            if (Character.isBmpCodePoint(codePoint)) {
+                hash = 31 * hash + codePoint;
+            } else {
+                hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns true when the field is empty or whitespace only.
+     */
+    public boolean isBlank(int field) {
+        int end = getEnd(field);
+
+        return skipWhitespace(getStart(field), end) == end;
+    }
+
+    /**
+     * Parses the field as an int straight from the buffer, ignoring surrounding whitespace.
+     */
+    public int getInt(int field) {
+        long value = getLong(field);
+
+        if (value < Integer.MIN_VALUE || Integer.MAX_VALUE < value) {
+            throw numberFormatException(field);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Parses the field as a long straight from the buffer, ignoring surrounding whitespace.
+     */
+    public long getLong(int field) {
+        int end = trimEnd(getStart(field), getEnd(field));
+        int i = skipWhitespace(getStart(field), end);
+
+        if (escaped[field] || i == end) {
+            throw numberFormatException(field);
+        }
+
+        boolean negative = false;
+        int c = at(i);
+        if ('-' == c || '+' == c) {
+            negative = '-' == c;
+
+            if (++i == end) {
+                throw numberFormatException(field);
+            }
+        }
+
+        // accumulated negatively, like Long.parseLong, so that Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < end; ++i) {
+            int digit = at(i) - '0';
+
+            if (digit < 0 || 9 < digit || result < limit / 10) {
+                throw numberFormatException(field);
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(field);
+            }
+
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses the field as a double, ignoring surrounding whitespace. Plain decimals with up to 15 significant digits
+     * are converted exactly from the buffer; anything else goes through {@link Double#parseDouble(String)}.
+     */
+    public double getDouble(int field) {
+        int end = trimEnd(getStart(field), getEnd(field));
+        int i = skipWhitespace(getStart(field), end);
+
+        if (isMissing(field)) {
+            throw numberFormatException(field);
+        }
+
+        if (escaped[field] || i == end) {
+            return Double.parseDouble(getString(field));
+        }
+
+        boolean negative = false;
+        int c = at(i);
+        if ('-' == c || '+' == c) {
+            negative = '-' == c;
+            ++i;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; i < end; ++i) {
+            c = at(i);
+
+            if ('.' == c && !point) {
+                point = true;
+
+                continue;
+            }
+
+            int digit = c - '0';
+            if (digit < 0 || 9 < digit) {
+                break;
+            }
+
+            any = true;
+
+            if (0 == mantissa && 0 == digit) {
+                if (point) {
+                    --exponent;
+                }
+
+                continue;
+            }
+
+            if (MAX_EXACT_DIGITS == digits) {
+                return Double.parseDouble(getString(field));
+            }
+
+            mantissa = mantissa * 10 + digit;
+            ++digits;
+
+            if (point) {
+                --exponent;
+            }
+        }
+
+        if (i < end) {
+            c = at(i);
+
+            if (('e' != c && 'E' != c) || !any) {
+                return Double.parseDouble(getString(field));
+            }
+
+            boolean negativeExponent = false;
+            if (++i < end && ('-' == at(i) || '+' == at(i))) {
+                negativeExponent = '-' == at(i);
+                ++i;
+            }
+
+            int explicit = 0;
+            int start = i;
+            for (; i < end; ++i) {
+                int digit = at(i) - '0';
+
+                if (digit < 0 || 9 < digit || 1000 < explicit) {
+                    return Double.parseDouble(getString(field));
+                }
+
+                explicit = explicit * 10 + digit;
+            }
+
+            if (start == end) {
+                return Double.parseDouble(getString(field));
+            }
+
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        if (!any) {
+            return Double.parseDouble(getString(field));
+        }
+
+        double value;
+        if (0 == mantissa) {
+            value = 0;
+        } else if (0 <= exponent && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(getString(field));
+        }
+
+        return negative ? -value : value;
+    }
+
+    private boolean compare(int field, CharSequence value, boolean prefix) {
+        if (isMissing(field)) {
+            return false;
+        }
+
+        int end = getEnd(field);
+        int length = value.length();
+        int j = 0;
+
+        for (int i = getStart(field); i < end; i = nextPosition) {
+            if (prefix && j == length) {
+                return true;
+            }
+
+            int codePoint = codePointAt(field, i, end);
+
+            if (Character.isBmpCodePoint(codePoint)) {
+                if (j == length || value.charAt(j++) != codePoint) {
+                    return false;
+                }
+            } else if (length < j + 2 || value.charAt(j++) != Character.highSurrogate(codePoint)
+                    || value.charAt(j++) != Character.lowSurrogate(codePoint)) {
+                return false;
+            }
+        }
+
+        return j == length;
+    }
+
+    private int at(int i) {
+        return null != chars ? chars[i] : bytes.get(i) & 0xFF;
+    }
+
+    private int skipWhitespace(int i, int end) {
+        while (i < end && isWhitespace(at(i))) {
+            ++i;
+        }
+
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (start < end && isWhitespace(at(end - 1))) {
+            --end;
+        }
+
+        return end;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c < 0x80 && Character.isWhitespace(c);
+    }
+
+    private NumberFormatException numberFormatException(int field) {
+        return new NumberFormatException("For input string: \"" + getString(field) + "\"");
+    }
+
+    private int codePointAt(int field, int i, int end) {
+        if (null != chars) {
+            char c = chars[i];
+
+            nextPosition = escaped[field] && quotation == c && i + 1 < end && quotation == chars[i + 1] ? i + 2 : i + 1;
+
+            return c;
+        }
+
+        int b = bytes.get(i) & 0xFF;
+        if (b < 0x80) {
+            nextPosition = escaped[field] && quotation == b && i + 1 < end && quotation == bytes.get(i + 1)
+                    ? i + 2 : i + 1;
+
+            return b;
+        }
+
+        // malformed input is replaced like new String(bytes, UTF_8) does: one U+FFFD for the longest valid prefix
+        // of a sequence, or for a whole three byte sequence that encodes a surrogate
+        nextPosition = i + 1;
+        if (b < 0xC2 || 0xF4 < b) {
+            return REPLACEMENT;
+        }
+
+        int length = b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+        int min = 0xE0 == b ? 0xA0 : 0xF0 == b ? 0x90 : 0x80;
+        int max = 0xF4 == b ? 0x8F : 0xBF;
+        int codePoint = b & (0xFF >> (length + 1));
+
+        for (int k = i + 1; k < i + length; ++k) {
+            int continuation = k < end ? bytes.get(k) & 0xFF : -1;
+
+            if (continuation < min || max < continuation) {
+                nextPosition = k;
+
+                return REPLACEMENT;
+            }
+
+            codePoint = (codePoint << 6) | (continuation & 0x3F);
+            min = 0x80;
+            max = 0xBF;
+        }
+
+        nextPosition = i + length;
+
+        return Character.MIN_SURROGATE <= codePoint && codePoint <= Character.MAX_SURROGATE ? REPLACEMENT : codePoint;
+    }
+
+    private int unescape(char[] source, int start, int end, char[] target) {
+        int length = 0;
+
+        for (int i = start; i < end; ++i) {
+            char c = source[i];
+
+            target[length++] = c;
+
+            if (quotation == c && i + 1 < end && quotation == source[i + 1]) {
+                ++i;
+            }
+        }
+
+        return length;
+    }
+
+    private int unescape(int start, int end, byte[] target) {
+        byte q = (byte) quotation;
+        int length = 0;
+
+        for (int i = start; i < end; ++i) {
+            byte b = bytes.get(i);
+
+            target[length++] = b;
+
+            if (q == b && i + 1 < end && q == bytes.get(i + 1)) {
+                ++i;
+            }
+        }
+
+        return length;
+    }
+
+    private char[] charScratch(int length) {
+        if (null == charScratch || charScratch.length < length) {
+            charScratch = new char[Math.max(length, INITIAL_CAPACITY << 4)];
+        }
+
+        return charScratch;
+    }
+
+    private byte[] byteScratch(int length) {
+        if (null == byteScratch || byteScratch.length < length) {
+            byteScratch = new byte[Math.max(length, INITIAL_CAPACITY << 4)];
+        }
+
+        return byteScratch;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || size <= field) {
+            throw new IndexOutOfBoundsException("field: " + field + ", size: " + size);
+        }
+    }
+}
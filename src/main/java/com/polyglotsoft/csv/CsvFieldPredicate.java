@@ -0,0 +1,10 @@
+package com.polyglotsoft.csv;
+
+/**
+ * Condition on one field of a line, tested while the line is being parsed. The field is only valid inside the call,
+ * so implementations should use the allocation free accessors of {@link CsvFieldIndex}.
+ */
+@FunctionalInterface
+public interface CsvFieldPredicate {
+    boolean test(CsvFieldIndex index, int field);
+}
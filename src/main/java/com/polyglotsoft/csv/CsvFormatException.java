@@ -0,0 +1,20 @@
+package com.polyglotsoft.csv;
+
+/**
+ * Thrown for a malformed record under {@link CsvErrorPolicy#STRICT}.
+ */
+public class CsvFormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient CsvError error;
+
+    public CsvFormatException(CsvError error) {
+        super(error.toString());
+
+        this.error = error;
+    }
+
+    public CsvError getError() {
+        return error;
+    }
+}
@@ -0,0 +1,487 @@
+package com.polyglotsoft.csv;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a gzip or zlib stream on its own thread, ahead of the thread reading from this stream. The inflated bytes
+ * are handed over in a ring of reusable buffers, so at most {@code ring} buffers are inflated ahead of the reader and
+ * no buffer is allocated per read. A gzip file made of BGZF members, as written by bgzip, records the size of every
+ * member in its header; such members are inflated by {@code workers} threads in parallel and read back in order.
+ * Other gzip files, multi-member ones included, are inflated sequentially, since their member boundaries are only
+ * found by inflating them.
+ */
+public final class CsvInflatingInputStream extends InputStream {
+    public static final int BUFFER_SIZE = 1024 * 1024;
+    public static final int RING_SIZE = 4;
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int BGZF_HEADER_SIZE = 18;
+    private static final int GZIP_HEADER_SIZE = 12;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final InputStream in;
+    private final BlockingQueue<byte[]> free;
+    private final BlockingQueue<Future<Chunk>> filled;
+    private final ExecutorService workers;
+    private final Thread inflater;
+
+    private volatile boolean closed;
+    private boolean ended;
+    private Chunk current;
+    private int position;
+
+    private CsvInflatingInputStream(InputStream in, int workers, int bufferSize, int ring) {
+        int id = SEQUENCE.incrementAndGet();
+        int buffers = Math.max(ring, workers + 2);
+
+        this.in = in;
+        this.free = new ArrayBlockingQueue<>(buffers);
+        this.filled = new ArrayBlockingQueue<>(buffers);
+
+        for (int i = 0; i < buffers; ++i) {
+            free.add(new byte[bufferSize]);
+        }
+
+        if (0 == workers) {
+            this.workers = null;
+            this.inflater = new Thread(this::inflate, "csv-inflater-" + id);
+        } else {
+            this.workers = Executors.newFixedThreadPool(workers, task -> {
+                Thread thread = new Thread(task, "csv-inflater-" + id + "-worker");
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+            this.inflater = new Thread(() -> inflateBlocks(bufferSize), "csv-inflater-" + id);
+        }
+
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    /**
+     * Inflates a gzip stream, using {@code workers} threads when it is BGZF. The stream is closed with this one.
+     */
+    public static CsvInflatingInputStream gzip(InputStream in, int workers) throws IOException {
+        return gzip(in, workers, BUFFER_SIZE, RING_SIZE);
+    }
+
+    public static CsvInflatingInputStream gzip(InputStream in) throws IOException {
+        return gzip(in, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Inflates a zlib stream, as sent for the HTTP {@code deflate} encoding. The stream is closed with this one.
+     */
+    public static CsvInflatingInputStream deflate(InputStream in) {
+        return deflate(in, BUFFER_SIZE, RING_SIZE);
+    }
+
+    static CsvInflatingInputStream gzip(InputStream in, int workers, int bufferSize, int ring) throws IOException {
+        if (workers <= 0 || bufferSize <= 0 || ring <= 0) {
+            throw new IllegalArgumentException("workers: " + workers + ", bufferSize: " + bufferSize + ", ring: "
+                    + ring);
+        }
+
+        try {
+            BufferedInputStream buffered = new BufferedInputStream(in, INPUT_BUFFER_SIZE);
+            byte[] header = new byte[BGZF_HEADER_SIZE];
+
+            buffered.mark(header.length);
+            int length = 0;
+            for (int read; length < header.length
+                    && -1 != (read = buffered.read(header, length, header.length - length)); ) {
+                length += read;
+            }
+            buffered.reset();
+
+            if (header.length == length && isBgzf(header)) {
+                return new CsvInflatingInputStream(buffered, workers, bufferSize, ring);
+            }
+
+            return new CsvInflatingInputStream(new GZIPInputStream(buffered, INPUT_BUFFER_SIZE), 0, bufferSize, ring);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+
+            throw e;
+        }
+    }
+
+    static CsvInflatingInputStream deflate(InputStream in, int bufferSize, int ring) {
+        if (bufferSize <= 0 || ring <= 0) {
+            throw new IllegalArgumentException("bufferSize: " + bufferSize + ", ring: " + ring);
+        }
+
+        return new CsvInflatingInputStream(new InflaterInputStream(in, new Inflater(), INPUT_BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        }, 0, bufferSize, ring);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return next() ? current.bytes[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || b.length - off < len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + b.length);
+        }
+
+        if (0 == len) {
+            return 0;
+        }
+
+        if (!next()) {
+            return -1;
+        }
+
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.bytes, position, b, off, count);
+        position += count;
+
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return null == current ? 0 : current.length - position;
+    }
+
+    /**
+     * Stops inflating; the underlying stream is closed by the inflating thread as it stops.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        ended = true;
+        current = null;
+
+        inflater.interrupt();
+        if (null != workers) {
+            workers.shutdownNow();
+        }
+
+        filled.clear();
+    }
+
+    /**
+     * Moves to the next inflated buffer once the current one is read, giving the current one back to the ring.
+     */
+    private boolean next() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (null == current || position == current.length) {
+            if (ended) {
+                return false;
+            }
+
+            if (null != current) {
+                free.add(current.bytes);
+                current = null;
+            }
+
+            Future<Chunk> chunk;
+            try {
+                chunk = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException();
+            }
+
+            if (END == chunk) {
+                ended = true;
+
+                return false;
+            }
+
+            current = get(chunk);
+            position = 0;
+        }
+
+        return true;
+    }
+
+    private Chunk get(Future<Chunk> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            ended = true;
+
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    private void inflate() {
+        try {
+            while (true) {
+                byte[] buffer = free.take();
+                int length = 0;
+
+                for (int read; length < buffer.length
+                        && -1 != (read = in.read(buffer, length, buffer.length - length)); ) {
+                    length += read;
+                }
+
+                if (0 < length) {
+                    filled.put(CompletableFuture.completedFuture(new Chunk(buffer, length)));
+                }
+
+                if (length < buffer.length) {
+                    break;
+                }
+            }
+
+            filled.put(END);
+        } catch (InterruptedException e) {
+            // closed by the reader
+        } catch (Throwable e) {
+            // whatever stopped inflating has to reach the reader, or read() would wait forever
+            fail(e);
+        } finally {
+            closeInput();
+        }
+    }
+
+    /**
+     * Reads whole BGZF members and groups them until their inflated sizes, taken from the member trailers, fill one
+     * buffer; every group is inflated by a worker into a buffer taken from the ring.
+     */
+    private void inflateBlocks(int bufferSize) {
+        DataInputStream input = new DataInputStream(in);
+        byte[] compressed = new byte[INPUT_BUFFER_SIZE];
+        int[] starts = new int[16];
+        int count = 0;
+        int length = 0;
+        int size = 0;
+        long offset = 0;
+
+        try {
+            for (int first; -1 != (first = input.read()); ) {
+                if (compressed.length - length < BGZF_HEADER_SIZE) {
+                    compressed = Arrays.copyOf(compressed, compressed.length << 1);
+                }
+
+                compressed[length] = (byte) first;
+                input.readFully(compressed, length + 1, BGZF_HEADER_SIZE - 1);
+                if (!isBgzf(compressed, length)) {
+                    throw new ZipException("Not a BGZF member at offset " + offset);
+                }
+
+                int blockSize = readShort(compressed, length + 16) + 1;
+                if (blockSize < BGZF_HEADER_SIZE + GZIP_TRAILER_SIZE) {
+                    throw new ZipException("Invalid BGZF member size at offset " + offset + ": " + blockSize);
+                }
+
+                if (compressed.length - length < blockSize) {
+                    compressed = Arrays.copyOf(compressed, Math.max(compressed.length << 1, length + blockSize));
+                }
+
+                input.readFully(compressed, length + BGZF_HEADER_SIZE, blockSize - BGZF_HEADER_SIZE);
+
+                int inflatedSize = readInt(compressed, length + blockSize - Integer.BYTES);
+                if (inflatedSize < 0 || bufferSize < inflatedSize) {
+                    throw new ZipException("BGZF member at offset " + offset + " inflates to more than " + bufferSize
+                            + " bytes");
+                }
+
+                // a group also ends at about one buffer of compressed bytes, whatever the trailers claim
+                if (0 < count && (bufferSize - size < inflatedSize || bufferSize < length + blockSize)) {
+                    submit(Arrays.copyOfRange(compressed, starts[0], length), starts, count);
+
+                    System.arraycopy(compressed, length, compressed, 0, blockSize);
+                    count = 0;
+                    length = 0;
+                    size = 0;
+                }
+
+                if (starts.length <= count + 1) {
+                    starts = Arrays.copyOf(starts, starts.length << 1);
+                }
+
+                starts[count++] = length;
+                length += blockSize;
+                starts[count] = length;
+                size += inflatedSize;
+                offset += blockSize;
+            }
+
+            if (0 < count) {
+                submit(Arrays.copyOf(compressed, length), starts, count);
+            }
+
+            filled.put(END);
+        } catch (InterruptedException e) {
+            // closed by the reader
+        } catch (Throwable e) {
+            // whatever stopped inflating has to reach the reader, or read() would wait forever
+            fail(e);
+        } finally {
+            workers.shutdown();
+            closeInput();
+        }
+    }
+
+    private void submit(byte[] compressed, int[] starts, int count) throws InterruptedException {
+        int[] bounds = Arrays.copyOf(starts, count + 1);
+        byte[] buffer = free.take();
+
+        if (closed) {
+            throw new InterruptedException();
+        }
+
+        filled.put(workers.submit(() -> new Chunk(buffer, inflateGroup(compressed, bounds, count, buffer))));
+    }
+
+    private void fail(Throwable e) {
+        CompletableFuture<Chunk> failure = new CompletableFuture<>();
+
+        failure.completeExceptionally(e);
+
+        try {
+            filled.put(failure);
+        } catch (InterruptedException ignored) {
+            // closed by the reader
+        }
+    }
+
+    private void closeInput() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // the input was read to the end or the stream was closed
+        }
+    }
+
+    private static int inflateGroup(byte[] compressed, int[] bounds, int count, byte[] target) throws IOException {
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        int length = 0;
+
+        try {
+            for (int i = 0; i < count; ++i) {
+                int start = bounds[i];
+                int end = bounds[i + 1];
+                int dataStart = start + GZIP_HEADER_SIZE + readShort(compressed, start + 10);
+                int inflatedSize = readInt(compressed, end - Integer.BYTES);
+                int inflated = 0;
+
+                inflater.reset();
+                inflater.setInput(compressed, dataStart, end - GZIP_TRAILER_SIZE - dataStart);
+
+                while (inflated < inflatedSize) {
+                    int produced = inflater.inflate(target, length + inflated, inflatedSize - inflated);
+                    if (0 == produced && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+
+                    inflated += produced;
+                }
+
+                crc.reset();
+                crc.update(target, length, inflated);
+
+                if (inflated != inflatedSize || (int) crc.getValue() != readInt(compressed, end - GZIP_TRAILER_SIZE)) {
+                    throw new ZipException("Corrupt BGZF member");
+                }
+
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt BGZF member: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        return length;
+    }
+
+    private static boolean isBgzf(byte[] header) {
+        return isBgzf(header, 0);
+    }
+
+    /**
+     * A gzip header with deflate compression and an extra field that starts with the BGZF member size subfield.
+     */
+    private static boolean isBgzf(byte[] bytes, int at) {
+        return 0x1F == (bytes[at] & 0xFF) && 0x8B == (bytes[at + 1] & 0xFF) && 8 == bytes[at + 2]
+                && 0 != (bytes[at + 3] & 4) && 6 <= readShort(bytes, at + 10) && 'B' == bytes[at + 12]
+                && 'C' == bytes[at + 13] && 2 == readShort(bytes, at + 14);
+    }
+
+    private static int readShort(byte[] bytes, int at) {
+        return (bytes[at] & 0xFF) | (bytes[at + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] bytes, int at) {
+        return readShort(bytes, at) | readShort(bytes, at + 2) << 16;
+    }
+
+    private static final class Chunk {
+        final byte[] bytes;
+        final int length;
+
+        Chunk(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+}
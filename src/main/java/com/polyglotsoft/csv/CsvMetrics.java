@@ -0,0 +1,171 @@
+package com.polyglotsoft.csv;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counting {@link CsvParseListener} with a power of two parse time histogram. Counters are {@link LongAdder}s, so
+ * many parsing threads can share one instance without contention. {@link #register(String)} publishes it over JMX.
+ */
+public final class CsvMetrics implements CsvParseListener, CsvMetricsMBean {
+    private static final int BUCKETS = 40;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder filteredRecords = new LongAdder();
+    private final LongAdder length = new LongAdder();
+    private final LongAdder fields = new LongAdder();
+    private final LongAdder truncatedLines = new LongAdder();
+    private final LongAdder truncatedColumns = new LongAdder();
+    private final LongAdder unclosedQuotations = new LongAdder();
+    private final LongAdder[] latencies = new LongAdder[BUCKETS];
+
+    public CsvMetrics() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            latencies[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void recordParsed(int length, int fields, long nanos) {
+        records.increment();
+        this.length.add(length);
+        this.fields.add(fields);
+        latencies[bucket(nanos)].increment();
+    }
+
+    @Override
+    public void recordFiltered(int length, long nanos) {
+        filteredRecords.increment();
+        this.length.add(length);
+        latencies[bucket(nanos)].increment();
+    }
+
+    @Override
+    public void lineTruncated(int length) {
+        truncatedLines.increment();
+    }
+
+    @Override
+    public void columnTruncated(int length) {
+        truncatedColumns.increment();
+    }
+
+    @Override
+    public void unclosedQuotation(int length) {
+        unclosedQuotations.increment();
+    }
+
+    @Override
+    public long getRecords() {
+        return records.sum();
+    }
+
+    @Override
+    public long getFilteredRecords() {
+        return filteredRecords.sum();
+    }
+
+    @Override
+    public long getLength() {
+        return length.sum();
+    }
+
+    @Override
+    public long getFields() {
+        return fields.sum();
+    }
+
+    @Override
+    public long getTruncatedLines() {
+        return truncatedLines.sum();
+    }
+
+    @Override
+    public long getTruncatedColumns() {
+        return truncatedColumns.sum();
+    }
+
+    @Override
+    public long getUnclosedQuotations() {
+        return unclosedQuotations.sum();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; ++i) {
+            histogram[i] = latencies[i].sum();
+        }
+
+        return histogram;
+    }
+
+    @Override
+    public long getLatencyPercentile(double percentile) {
+        long[] histogram = getLatencyHistogram();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+
+        long rank = (long) Math.ceil(total * Math.max(0, Math.min(100, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += histogram[i];
+
+            if (0 < histogram[i] && rank <= seen) {
+                return 1L << i;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        records.reset();
+        filteredRecords.reset();
+        length.reset();
+        fields.reset();
+        truncatedLines.reset();
+        truncatedColumns.reset();
+        unclosedQuotations.reset();
+
+        for (LongAdder latency : latencies) {
+            latency.reset();
+        }
+    }
+
+    /**
+     * Registers this instance with the platform MBean server as
+     * {@code com.polyglotsoft.csv:type=CsvMetrics,name=<name>} and returns the object name.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+        return objectName;
+    }
+
+    public void unregister(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(name);
+
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("com.polyglotsoft.csv:type=CsvMetrics,name=" + ObjectName.quote(name));
+    }
+
+    private static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+}
@@ -0,0 +1,35 @@
+package com.polyglotsoft.csv;
+
+/**
+ * JMX view of {@link CsvMetrics}.
+ */
+public interface CsvMetricsMBean {
+    long getRecords();
+
+    long getFilteredRecords();
+
+    /**
+     * Chars or bytes of all lines, depending on the input.
+     */
+    long getLength();
+
+    long getFields();
+
+    long getTruncatedLines();
+
+    long getTruncatedColumns();
+
+    long getUnclosedQuotations();
+
+    /**
+     * Number of lines per parse time bucket; bucket {@code i} counts times below {@code 2^i} nanoseconds.
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Upper bound in nanoseconds of the bucket holding the given percentile, between 0 and 100.
+     */
+    long getLatencyPercentile(double percentile);
+
+    void reset();
+}
@@ -0,0 +1,36 @@
+package com.polyglotsoft.csv;
+
+/**
+ * Receives an event for every line a parser splits, see {@link CsvParser#withListener(CsvParseListener)}. Lengths
+ * are in chars for text input and in bytes for byte input; readers keep at most one char beyond {@code lineLimit},
+ * so the length of a truncated line may stop there. Events arrive on the parsing threads, so implementations must
+ * be thread safe and cheap.
+ */
+public interface CsvParseListener {
+    default void recordParsed(int length, int fields, long nanos) {
+    }
+
+    /**
+     * A line rejected by the parser's filter.
+     */
+    default void recordFiltered(int length, long nanos) {
+    }
+
+    /**
+     * A line longer than {@code lineLimit}; only its beginning was parsed.
+     */
+    default void lineTruncated(int length) {
+    }
+
+    /**
+     * A line with more fields than {@code columnLimit}; the rest were dropped.
+     */
+    default void columnTruncated(int length) {
+    }
+
+    /**
+     * A line with a quotation left open.
+     */
+    default void unclosedQuotation(int length) {
+    }
+}
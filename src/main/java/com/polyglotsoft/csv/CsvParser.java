@@ -1,10 +1,29 @@
 package com.polyglotsoft.csv;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits lines into fields. A parser is immutable and safe to share between threads: the methods that return Strings
+ * work in a scratch {@link CsvFieldIndex} kept per thread and per parser, whose char buffer grows on demand up to
+ * {@code lineLimit} and is then reused, so parsing from many threads neither allocates working buffers per line nor
+ * needs a pool. The methods taking a {@link CsvFieldIndex} use the caller's index instead.
+ */
 public class CsvParser {
     public static final char COMMA = (char) 0x2C;
     public static final char SEMICOLON = (char) 0x3B;
+    public static final char TAB = (char) 0x09;
+    public static final char PIPE = (char) 0x7C;
     public static final char CR = (char) 0x0D;
     public static final char SINGLE_QUOTES = (char) 0x27;
     public static final char DOUBLE_QUOTES = (char) 0x22;
@@ -16,26 +35,170 @@ public class CsvParser {
     private final char quotation;
     private final int lineLimit;
     private final int columnLimit;
+    private final int[] projection;
+    private final CsvRowFilter filter;
+    private final CsvStringCache stringCache;
+    private final CsvParseListener listener;
+    private final CsvErrorPolicy errorPolicy;
+    private final CsvErrorSink errorSink;
+    private final CsvTokenizer tokenizer;
+    private final ThreadLocal<CsvFieldIndex> scratch = ThreadLocal.withInitial(CsvFieldIndex::new);
 
     public CsvParser(char delimiter, char quotation, int lineLimit, int columnLimit) {
+        this(delimiter, quotation, lineLimit, columnLimit, null, null, null, null, null, null);
+    }
+
+    private CsvParser(char delimiter, char quotation, int lineLimit, int columnLimit, int[] projection,
+            CsvRowFilter filter, CsvStringCache stringCache, CsvParseListener listener, CsvErrorPolicy errorPolicy,
+            CsvErrorSink errorSink) {
         this.delimiter = delimiter;
         this.quotation = quotation;
         this.lineLimit = lineLimit;
         this.columnLimit = columnLimit;
+        this.projection = projection;
+        this.filter = filter;
+        this.stringCache = stringCache;
+        this.listener = listener;
+        this.errorPolicy = errorPolicy;
+        this.errorSink = errorSink;
+        this.tokenizer = new CsvTokenizer(delimiter, quotation, lineLimit, columnLimit, projection, filter, listener,
+                errorPolicy, errorSink);
     }
 
     public CsvParser(char delimiter) {
-        this.delimiter = delimiter;
-        this.quotation = DOUBLE_QUOTES;
-        this.lineLimit = LINE_LIMIT;
-        this.columnLimit = COLUMN_LIMIT;
+        this(delimiter, DOUBLE_QUOTES, LINE_LIMIT, COLUMN_LIMIT);
     }
 
     public CsvParser() {
-        this.delimiter = COMMA;
-        this.quotation = DOUBLE_QUOTES;
-        this.lineLimit = LINE_LIMIT;
-        this.columnLimit = COLUMN_LIMIT;
+        this(COMMA, DOUBLE_QUOTES, LINE_LIMIT, COLUMN_LIMIT);
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public char getQuotation() {
+        return quotation;
+    }
+
+    public int getLineLimit() {
+        return lineLimit;
+    }
+
+    public int getColumnLimit() {
+        return columnLimit;
+    }
+
+    /**
+     * Returns the projected columns, or null when every column is parsed.
+     */
+    public int[] getProjection() {
+        return null == projection ? null : projection.clone();
+    }
+
+    /**
+     * Returns a parser with the same settings that only parses the given zero based columns and returns them in the
+     * given order. Other fields are skipped without creating Strings, the scan stops after the last projected column
+     * and a column missing from a line is returned as null. The projection replaces {@code columnLimit}.
+     */
+    public CsvParser withProjection(int... columns) {
+        if (0 == columns.length) {
+            throw new IllegalArgumentException("projection must not be empty");
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("column must not be negative: " + column);
+            }
+
+            if (!seen.add(column)) {
+                throw new IllegalArgumentException("column projected twice: " + column);
+            }
+        }
+
+        return new CsvParser(delimiter, quotation, lineLimit, columnLimit, columns.clone(), filter, stringCache, listener,
+                errorPolicy, errorSink);
+    }
+
+    /**
+     * Same as {@link #withProjection(int...)} with the columns looked up by name in {@code header}, for example the
+     * first record of a file.
+     */
+    public CsvParser withProjection(String[] header, String... names) {
+        return withProjection(new CsvSchema(header), names);
+    }
+
+    /**
+     * Same as {@link #withProjection(int...)} with the columns looked up by name in {@code schema}. The records of the
+     * returned parser follow {@code schema.select(names)}.
+     */
+    public CsvParser withProjection(CsvSchema schema, String... names) {
+        return withProjection(schema.indexesOf(names));
+    }
+
+    public CsvRowFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns a parser with the same settings that drops lines rejected by {@code filter}. The conditions run while
+     * the line is scanned, so a rejected line is abandoned at its first failing column. Readers skip rejected lines
+     * and {@link #parseLine(String)} returns null for them.
+     */
+    public CsvParser withFilter(CsvRowFilter filter) {
+        return new CsvParser(delimiter, quotation, lineLimit, columnLimit, projection, filter, stringCache, listener,
+                errorPolicy, errorSink);
+    }
+
+    public CsvStringCache getStringCache() {
+        return stringCache;
+    }
+
+    /**
+     * Returns a parser with the same settings whose String results, from {@link #parseLine(String)}, the readers and
+     * {@link #stream(Path)}, share repeated values through {@code stringCache}.
+     */
+    public CsvParser withStringCache(CsvStringCache stringCache) {
+        return new CsvParser(delimiter, quotation, lineLimit, columnLimit, projection, filter, stringCache, listener,
+                errorPolicy, errorSink);
+    }
+
+    public CsvParseListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Returns a parser with the same settings that reports every line it splits, in {@link #parseLine(String)}, the
+     * readers, the streams and the pipeline, to {@code listener}, for example a {@link CsvMetrics}.
+     */
+    public CsvParser withListener(CsvParseListener listener) {
+        return new CsvParser(delimiter, quotation, lineLimit, columnLimit, projection, filter, stringCache, listener,
+                errorPolicy, errorSink);
+    }
+
+    public CsvErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+
+    public CsvErrorSink getErrorSink() {
+        return errorSink;
+    }
+
+    /**
+     * Returns a parser with the same settings that checks every line for an unclosed quotation, a line longer than
+     * {@code lineLimit} and more fields than {@code columnLimit}, reports each such line to {@code errorSink} (which may
+     * be null) and then handles it by {@code errorPolicy}. {@link #parseLine(String)} returns null for a line dropped
+     * by {@link CsvErrorPolicy#SKIP}, the readers go on with the next record. Without an error policy lines are parsed
+     * as far as possible and nothing is reported.
+     */
+    public CsvParser withErrorPolicy(CsvErrorPolicy errorPolicy, CsvErrorSink errorSink) {
+        return new CsvParser(delimiter, quotation, lineLimit, columnLimit, projection, filter, stringCache, listener,
+                errorPolicy, errorSink);
+    }
+
+    CsvTokenizer getTokenizer() {
+        return tokenizer;
     }
 
     public static CsvParser detectParser(List<String> first5Lines, int lineLimit, int columnLimit) {
@@ -93,197 +256,157 @@ public class CsvParser {
         return semicolonSingleQuotesParser;
     }
 
-    private String newString(char[] chars, int start, int end) {
-        int index = -1;
-        int shrankLength = end - start;
-        char[] shrankChars = null;
-
-        for (int i = start; i < end; ++i) {
-            if (7 == chars[i] || (quotation == chars[i] && i + 1 < end && 7 == chars[i + 1])) {
-                if (null == shrankChars) {
-                    shrankChars = new char[end - start - 1];
-
-                    int currentLength = i - start;
-                    if (0 < currentLength) {
-                        System.arraycopy(chars, start, shrankChars, start, i - start);
-
-                        index = currentLength - 1;
-                    }
-                }
-
-                if (7 == chars[i]) {
-                    --shrankLength;
+    /**
+     * Splits {@code line} into its fields. Returns an empty array for null or empty lines and null when the filter
+     * rejects the line.
+     */
+    public String[] parseLine(String line) {
+        if (null == line || line.isEmpty()) {
+            return new String[0];
+        }
 
-                    continue;
-                }
+        if (null == projection && null == filter && null == stringCache && null == listener && null == errorPolicy) {
+            if (lineLimit < line.length()) {
+                line = line.substring(0, lineLimit);
             }
 
-            if (null != shrankChars) {
-                shrankChars[++index] = chars[i];
+            if (line.indexOf(quotation) < 0) {
+                return split(line);
             }
         }
 
-        if (null == shrankChars) {
-            return new String(chars, start, end - start);
-        }
+        CsvFieldIndex index = scratch.get();
 
-        return new String(shrankChars, 0, shrankLength);
+        return -1 == parseLine(line, index) ? null : index.toArray(stringCache);
     }
 
-    public String[] parseLine(String line) {
-        if (null == line || line.isEmpty()) {
-            return new String[0];
+    /**
+     * Splits {@code length} UTF-8 bytes starting at {@code offset} into their fields without decoding the whole line:
+     * the structure is found on the raw bytes and only the field slices are decoded. {@code lineLimit} still counts
+     * chars. Returns null when the filter rejects the line.
+     */
+    public String[] parseLine(byte[] bytes, int offset, int length) {
+        return parseBuffer(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Same as {@link #parseLine(byte[], int, int)} for the bytes between the position and the limit of a heap or
+     * direct buffer; the position is left unchanged. Named apart from {@code parseLine} so that
+     * {@code parseLine(null)} stays unambiguous.
+     */
+    public String[] parseBuffer(ByteBuffer line) {
+        CsvFieldIndex index = scratch.get();
+
+        try {
+            return -1 == parseBuffer(line, index) ? null : index.toArray(stringCache);
+        } finally {
+            // the scratch index must not keep the caller's buffer reachable
+            index.reset((char[]) null, quotation);
         }
+    }
 
-        if (lineLimit < line.length()) {
-            line = line.substring(0, lineLimit);
+    /**
+     * Fast path for lines without any quotation: the fields are exactly the delimiter separated substrings.
+     * {@link String#indexOf(int, int)} is a JIT intrinsic that compares many chars per instruction.
+     */
+    private String[] split(String line) {
+        int count = 1;
+        for (int i = line.indexOf(delimiter); -1 != i && count < columnLimit; i = line.indexOf(delimiter, i + 1)) {
+            ++count;
         }
 
-        char[] chars = line.toCharArray();
-
-        int resultLength = 1;
-        int lastQuotationStart = -1;
-        int lastQuotationEnd = -1;
-        int lastDelimiter = -1;
-        boolean quoted = false;
-        for (int i = 0; i < chars.length; ++i) {
-            if (quotation == chars[i]) {
-                if (i + 1 < chars.length && quotation == chars[i + 1]) {
-                    if (!quoted) {
-                        boolean emptyQuotes = true;
-                        for (int j = i + 2; j < chars.length; ++j) {
-                            if (delimiter == chars[j]) {
-                                break;
-                            }
-
-                            if (!Character.isWhitespace(chars[j])) {
-                                emptyQuotes = false;
-
-                                break;
-                            }
-                        }
-
-                        if (emptyQuotes) {
-                            chars[i] = 7;
-                        } else {
-                            boolean validQuotation = true;
-                            for (int j = i - 1; j != lastDelimiter; --j) {
-                                if (!Character.isWhitespace(chars[j])) {
-                                    validQuotation = false;
-                                    break;
-                                }
-                            }
-
-                            if (validQuotation) {
-                                lastQuotationStart = i - 1;
-                                quoted = true;
-                            }
-                        }
-                    }
-
-                    chars[i + 1] = 7;
-                } else {
-                    if (quoted) {
-                        boolean escapedQuotation = true;
-                        for (int j = i - 1; j != lastDelimiter; --j) {
-                            if (7 != chars[j] && quotation != chars[j]) {
-                                escapedQuotation = false;
-                                break;
-                            }
-                        }
-
-                        if (escapedQuotation) {
-                            chars[i] = 7;
-                        } else {
-                            if (2 < i && 7 == chars[i - 1] && quotation == chars[i - 2] && i == chars.length - 1) {
-                                chars[i - 2] = 7;
-                            }
-
-                            lastQuotationEnd = i;
-                            quoted = false;
-                        }
-                    } else {
-                        boolean validQuotation = true;
-                        for (int j = i - 1; j != lastDelimiter; --j) {
-                            if (!Character.isWhitespace(chars[j])) {
-                                validQuotation = false;
-                                break;
-                            }
-                        }
-
-                        if (validQuotation) {
-                            lastQuotationStart = i;
-                            quoted = true;
-                        }
-                    }
-                }
-            } else if (delimiter == chars[i] && !quoted) {
-                chars[i] = 0;
+        String[] result = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; ++i) {
+            int end = line.indexOf(delimiter, start);
 
-                if (-1 != lastQuotationStart && -1 != lastQuotationEnd) {
-                    for (int j = lastDelimiter + 1; j <= lastQuotationStart; ++j) {
-                        chars[j] = 7;
-                    }
+            result[i] = line.substring(start, end);
+            start = end + 1;
+        }
 
-                    for (int j = lastQuotationEnd; j < i; ++j) {
-                        chars[j] = 7;
-                    }
-                }
+        int end = line.indexOf(delimiter, start);
+        result[count - 1] = line.substring(start, -1 == end ? line.length() : end);
 
-                lastDelimiter = i;
-                lastQuotationStart = -1;
-                lastQuotationEnd = -1;
+        return result;
+    }
 
-                if (resultLength == columnLimit) {
-                    break;
-                }
+    /**
+     * Parses {@code length} chars starting at {@code offset} into {@code index} and returns the field count. The
+     * offsets in {@code index} point into {@code chars}. Returns -1 when the filter rejects the line.
+     */
+    public int parseLine(char[] chars, int offset, int length, CsvFieldIndex index) {
+        return tokenizer.check(index, tokenizer.tokenize(chars, offset, offset + length, index), -1, -1, false);
+    }
 
-                ++resultLength;
-            }
+    /**
+     * Parses {@code line} into {@code index} and returns the field count, or -1 when the filter rejects the line;
+     * offsets are positions in {@code line}.
+     */
+    public int parseLine(String line, CsvFieldIndex index) {
+        if (null == line) {
+            index.reset((char[]) null, quotation);
+
+            return 0;
         }
 
-        if (-1 != lastQuotationStart && -1 != lastQuotationEnd) {
-            for (int j = lastDelimiter + 1; j <= lastQuotationStart; ++j) {
-                chars[j] = 7;
-            }
+        // one char beyond the limit is copied so that the tokenizer can tell that the line was truncated
+        int limit = (int) Math.min(Integer.MAX_VALUE, (long) lineLimit + 1);
+        int length = Math.min(line.length(), limit);
+        char[] chars = index.ownedChars(length, limit);
 
-            for (int j = lastQuotationEnd; j < chars.length; ++j) {
-                chars[j] = 7;
-            }
-        }
+        line.getChars(0, length, chars, 0);
 
-        if (-1 != lastQuotationStart && -1 == lastQuotationEnd) {
-            for (int j = lastQuotationStart + 1; j < chars.length; ++j) {
-                if (delimiter == chars[j]) {
-                    chars[j] = 0;
-                    ++resultLength;
-                }
-            }
-        }
+        return tokenizer.check(index, tokenizer.tokenize(chars, 0, length, index), -1, -1, false);
+    }
 
-        int start = 0;
-        int resultIndex = -1;
-        String[] result = new String[Math.min(resultLength, columnLimit)];
-        for (int i = 0; i < chars.length; ++i) {
-            if (7 == chars[i]) {
-                continue;
-            }
+    /**
+     * Parses {@code length} UTF-8 bytes starting at {@code offset} into {@code index} and returns the field count, or
+     * -1 when the filter rejects the line; offsets are positions in {@code bytes}.
+     */
+    public int parseLine(byte[] bytes, int offset, int length, CsvFieldIndex index) {
+        return parseBuffer(ByteBuffer.wrap(bytes, offset, length), index);
+    }
 
-            if (0 == chars[i]) {
-                if (resultIndex + 1 == result.length) {
-                    break;
-                }
+    /**
+     * Parses the UTF-8 bytes between the position and the limit of {@code line} into {@code index} and returns the
+     * field count, or -1 when the filter rejects the line; offsets are absolute positions in {@code line}.
+     */
+    public int parseBuffer(ByteBuffer line, CsvFieldIndex index) {
+        return tokenizer.check(index, tokenizer.tokenize(line, line.position(), line.limit(), index), -1, -1, false);
+    }
 
-                result[++resultIndex] = newString(chars, start, i);
+    /**
+     * Streams the records of a UTF-8 file. Parallel streams split the file at record boundaries, so the pipeline
+     * really runs on several cores, unless the error policy resynchronizes. The stream holds the file open until it is
+     * closed.
+     */
+    public Stream<String[]> stream(Path path) throws IOException {
+        return stream(path, index -> index.toArray(stringCache));
+    }
 
-                start = i + 1;
-            }
-        }
+    /**
+     * Streams the records of a UTF-8 file as field indexes. Each split reuses one index for all of its records, so an
+     * index must be consumed before the stream moves on and must not be collected.
+     */
+    public Stream<CsvFieldIndex> streamFieldIndexes(Path path) throws IOException {
+        return stream(path, Function.identity());
+    }
 
-        if (resultIndex + 1 < result.length && 0 < chars.length && start <= chars.length) {
-            result[++resultIndex] = newString(chars, start, chars.length);
-        }
+    private <T> Stream<T> stream(Path path, Function<CsvFieldIndex, T> mapper) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
 
-        return result;
+        try {
+            return StreamSupport.stream(new CsvSpliterator<>(channel, this, mapper), false).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+
+            throw e;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Overlaps reading, parsing and consuming a UTF-8 input. A reader thread fills large buffers and cuts them into
+ * chunks of {@code batchSize} records, worker threads parse the chunks into batches, and the consumer takes the
+ * batches in input order from {@link CsvBatches}. At most {@code queueDepth} batches are read ahead of the consumer,
+ * so a slow consumer stalls the reader instead of growing the heap. Like {@link CsvReader}, only the first
+ * {@code lineLimit} bytes of a longer record are kept, and an error policy that resynchronizes cuts such a record at
+ * its first line break.
+ */
+public class CsvPipeline {
+    public static final int BATCH_SIZE = 4096;
+    public static final int QUEUE_DEPTH = 16;
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final CsvParser parser;
+    private final int batchSize;
+    private final int queueDepth;
+    private final int workers;
+
+    public CsvPipeline(CsvParser parser, int batchSize, int queueDepth, int workers) {
+        if (batchSize <= 0 || queueDepth <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("batchSize: " + batchSize + ", queueDepth: " + queueDepth
+                    + ", workers: " + workers);
+        }
+
+        this.parser = parser;
+        this.batchSize = batchSize;
+        this.queueDepth = queueDepth;
+        this.workers = workers;
+    }
+
+    public CsvPipeline(CsvParser parser) {
+        this(parser, BATCH_SIZE, QUEUE_DEPTH, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts reading {@code in} in the background. The stream is not closed by the pipeline.
+     */
+    public CsvBatches open(InputStream in) {
+        return new CsvBatches(in, false, parser, batchSize, queueDepth, workers, BUFFER_SIZE);
+    }
+
+    /**
+     * Starts reading the file at {@code path} in the background; the file is closed when the input ends or the
+     * batches are closed.
+     */
+    public CsvBatches open(Path path) throws IOException {
+        return new CsvBatches(Files.newInputStream(path), true, parser, batchSize, queueDepth, workers,
+                BUFFER_SIZE);
+    }
+
+    /**
+     * Same as {@link #open(Path)} for a gzip file, which is inflated on a thread of its own ahead of the reader
+     * thread, see {@link CsvInflatingInputStream}; BGZF files are inflated by {@code workers} threads.
+     */
+    public CsvBatches openGzip(Path path) throws IOException {
+        return new CsvBatches(CsvInflatingInputStream.gzip(Files.newInputStream(path), workers), true, parser,
+                batchSize, queueDepth, workers, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,261 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * Reads records from a character stream through one reusable buffer. Quoted fields may span line breaks, empty lines
+ * are skipped and only the first {@code lineLimit} characters of a record are kept, so memory stays bounded by the
+ * buffer size and the parser's line limit. With an error policy that resynchronizes, a record longer than the line
+ * limit is cut at its first line break, wherever that is, and the input after it is scanned again from that break.
+ */
+public class CsvReader implements CsvRecordReader {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int INITIAL_RECORD_SIZE = 256;
+
+    private final Reader reader;
+    private final CsvParser parser;
+    private final CsvTokenizer tokenizer;
+    private final RecordScanner scanner;
+    private final CsvFieldIndex index = new CsvFieldIndex();
+    private final char[] readBuffer;
+
+    private char[] buffer;
+    private long bufferOffset;
+    private long readOffset;
+    private long row;
+    private long recordOffset;
+    private int position;
+    private int limit;
+    private char[] record;
+    private int recordLength;
+    private boolean recordStarted;
+    private boolean eof;
+
+    public CsvReader(Reader reader, CsvParser parser, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+
+        this.reader = reader;
+        this.parser = parser;
+        this.tokenizer = parser.getTokenizer();
+        this.scanner = new RecordScanner(parser.getDelimiter(), parser.getQuotation());
+        this.readBuffer = new char[bufferSize];
+        this.buffer = readBuffer;
+        this.record = new char[Math.max(1, Math.min(INITIAL_RECORD_SIZE, parser.getLineLimit()))];
+    }
+
+    public CsvReader(Reader reader, CsvParser parser) {
+        this(reader, parser, BUFFER_SIZE);
+    }
+
+    public CsvReader(InputStream inputStream, Charset charset, CsvParser parser) {
+        this(new InputStreamReader(inputStream, charset), parser, BUFFER_SIZE);
+    }
+
+    public CsvReader(Reader reader) {
+        this(reader, new CsvParser(), BUFFER_SIZE);
+    }
+
+    public CsvParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public String[] readRecord() throws IOException {
+        if (!readRecord(index)) {
+            return null;
+        }
+
+        return index.toArray(parser.getStringCache());
+    }
+
+    @Override
+    public boolean readRecord(CsvFieldIndex index) throws IOException {
+        boolean resyncs = tokenizer.resyncs();
+        int lineLimit = parser.getLineLimit();
+
+        recordLength = 0;
+        recordStarted = false;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                scanner.reset();
+
+                return recordStarted && -1 != check(index, tokenizer.tokenize(record, 0, recordLength, index), false);
+            }
+
+            int start = position;
+            int end = scanner.findRecordEnd(buffer, start, limit);
+
+            if (!recordStarted && -1 != end) {
+                position = end + 1;
+
+                if (start == end) {
+                    continue;
+                }
+
+                // the whole record is in the buffer, so it is parsed in place
+                recordOffset = bufferOffset + start;
+
+                int cut = tokenizer.findCut(buffer, start, end);
+                if (-1 != cut) {
+                    scanner.reset();
+                    position = cut + 1;
+                }
+
+                int fields = tokenizer.tokenize(buffer, start, -1 == cut ? end : cut, index);
+                if (-1 != check(index, fields, -1 != cut)) {
+                    return true;
+                }
+
+                continue;
+            }
+
+            int copied = append(start, -1 == end ? limit : end);
+            position = -1 == end ? limit : end + 1;
+
+            if (resyncs && lineLimit < recordLength) {
+                // the kept chars are searched once, when the record grows past lineLimit, and the chars that are
+                // not kept on every read after that, so the cut is at the first line break wherever it is
+                int cut = 0 < copied ? tokenizer.findCut(record, 0, recordLength) : -1;
+
+                if (-1 != cut) {
+                    replay(cut + 1, start + copied);
+                } else {
+                    cut = CsvTokenizer.indexOfLineBreak(buffer, start + copied, -1 == end ? limit : end);
+
+                    if (-1 != cut) {
+                        scanner.reset();
+                        position = cut + 1;
+                        cut = recordLength;
+                    }
+                }
+
+                if (-1 != cut) {
+                    if (-1 != check(index, tokenizer.tokenize(record, 0, cut, index), true)) {
+                        return true;
+                    }
+
+                    recordLength = 0;
+                    recordStarted = false;
+
+                    continue;
+                }
+            }
+
+            if (-1 == end) {
+                continue;
+            }
+
+            if (-1 != check(index, tokenizer.tokenize(record, 0, recordLength, index), false)) {
+                return true;
+            }
+
+            // the filter or the error policy rejected the record, so start over with the next one
+            recordLength = 0;
+            recordStarted = false;
+        }
+    }
+
+    /**
+     * Number of non-empty records read so far, the row number of the next one.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    private int check(CsvFieldIndex index, int fields, boolean cut) {
+        return tokenizer.check(index, fields, row++, recordOffset, cut);
+    }
+
+    /**
+     * Scans the kept record from {@code from} and then the buffer from {@code resume} again. The scanner starts over
+     * at a record start there.
+     */
+    private void replay(int from, int resume) {
+        char[] pending = new char[recordLength - from + limit - resume];
+
+        System.arraycopy(record, from, pending, 0, recordLength - from);
+        System.arraycopy(buffer, resume, pending, recordLength - from, limit - resume);
+
+        scanner.reset();
+        bufferOffset = recordOffset + from;
+        buffer = pending;
+        position = 0;
+        limit = pending.length;
+    }
+
+    /**
+     * Copies the chars between {@code start} and {@code end} behind the kept record, returning how many were kept.
+     */
+    private int append(int start, int end) {
+        if (start == end) {
+            return 0;
+        }
+
+        if (!recordStarted) {
+            recordOffset = bufferOffset + start;
+        }
+
+        recordStarted = true;
+
+        // one char beyond the limit is kept so that the tokenizer can tell that the line was truncated
+        int limit = (int) Math.min((long) parser.getLineLimit() + 1, Integer.MAX_VALUE);
+        int length = Math.min(end - start, limit - recordLength);
+        if (length <= 0) {
+            return 0;
+        }
+
+        if (record.length < recordLength + length) {
+            long grown = Math.max((long) record.length << 1, recordLength + length);
+            char[] newRecord = new char[(int) Math.min(grown, limit)];
+
+            System.arraycopy(record, 0, newRecord, 0, recordLength);
+
+            record = newRecord;
+        }
+
+        System.arraycopy(buffer, start, record, recordLength, length);
+
+        recordLength += length;
+
+        return length;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        buffer = readBuffer;
+        bufferOffset = readOffset;
+
+        int read = reader.read(buffer, 0, buffer.length);
+        while (0 == read) {
+            read = reader.read(buffer, 0, buffer.length);
+        }
+
+        if (-1 == read) {
+            eof = true;
+
+            return false;
+        }
+
+        position = 0;
+        limit = read;
+        readOffset += read;
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.polyglotsoft.csv;
+
+import java.util.Arrays;
+
+/**
+ * Values of one record together with the {@link CsvSchema} naming them. Looking a value up by name goes through the
+ * schema's precomputed table, so no per record map is built.
+ */
+public final class CsvRecord {
+    private final CsvSchema schema;
+    private final String[] values;
+
+    public CsvRecord(CsvSchema schema, String[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of {@code column}, or null when the record is shorter than that.
+     */
+    public String get(int column) {
+        return column < values.length ? values[column] : null;
+    }
+
+    /**
+     * Returns the value of the column called {@code name}, or null when the record is shorter than that column.
+     *
+     * @throws IllegalArgumentException if the schema has no such column
+     */
+    public String get(String name) {
+        int column = schema.indexOf(name);
+
+        if (-1 == column) {
+            throw new IllegalArgumentException("column not in schema: " + name);
+        }
+
+        return get(column);
+    }
+
+    public String[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,20 @@
+package com.polyglotsoft.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Common surface of the record readers.
+ */
+public interface CsvRecordReader extends Closeable {
+    /**
+     * Returns the next record, or null at the end of the input.
+     */
+    String[] readRecord() throws IOException;
+
+    /**
+     * Parses the next record into {@code index} without creating Strings, returning false at the end of the input.
+     * The offsets point into the reader's own buffer and stay valid until the next read.
+     */
+    boolean readRecord(CsvFieldIndex index) throws IOException;
+}
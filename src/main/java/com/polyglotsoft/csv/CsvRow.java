@@ -0,0 +1,158 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reusable record whose fields are {@link CharSequence} views over the parse buffer. A field without doubled
+ * quotations that was parsed from chars is read in place; any other field is unescaped or decoded into a buffer owned
+ * by its view the first time it is read. Views and buffers are reused from record to record, so once they have grown
+ * reading a row allocates nothing until {@link CharSequence#toString()} is called.
+ * <p>
+ * Views are only valid until the row is filled again.
+ */
+public final class CsvRow {
+    private final CsvFieldIndex index = new CsvFieldIndex();
+
+    private Field[] fields = new Field[0];
+    private int generation;
+
+    /**
+     * Reads the next record of {@code reader} into this row, returning false at the end of the input.
+     */
+    public boolean read(CsvRecordReader reader) throws IOException {
+        ++generation;
+
+        return reader.readRecord(index);
+    }
+
+    /**
+     * Parses {@code line} into this row and returns the field count, or -1 when the parser's filter rejects it.
+     */
+    public int parse(CsvParser parser, String line) {
+        ++generation;
+
+        return parser.parseLine(line, index);
+    }
+
+    public int parse(CsvParser parser, char[] chars, int offset, int length) {
+        ++generation;
+
+        return parser.parseLine(chars, offset, length, index);
+    }
+
+    public int parse(CsvParser parser, byte[] bytes, int offset, int length) {
+        ++generation;
+
+        return parser.parseLine(bytes, offset, length, index);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns a view of the field, or null for a projected column the line does not have.
+     */
+    public CharSequence get(int field) {
+        if (index.isMissing(field)) {
+            return null;
+        }
+
+        if (fields.length <= field) {
+            int length = fields.length;
+
+            fields = Arrays.copyOf(fields, Math.max(field + 1, length << 1));
+            for (int i = length; i < fields.length; ++i) {
+                fields[i] = new Field(i);
+            }
+        }
+
+        return fields[field];
+    }
+
+    /**
+     * The index behind this row, for the allocation free comparisons and typed getters of {@link CsvFieldIndex}.
+     */
+    public CsvFieldIndex getIndex() {
+        return index;
+    }
+
+    public String[] toArray() {
+        return index.toArray();
+    }
+
+    private final class Field implements CharSequence {
+        private final int field;
+
+        private int generation = -1;
+        private char[] chars;
+        private int start;
+        private int length;
+        private char[] decoded;
+
+        Field(int field) {
+            this.field = field;
+        }
+
+        @Override
+        public int length() {
+            bind();
+
+            return length;
+        }
+
+        @Override
+        public char charAt(int i) {
+            bind();
+
+            if (i < 0 || length <= i) {
+                throw new IndexOutOfBoundsException("index: " + i + ", length: " + length);
+            }
+
+            return chars[start + i];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            bind();
+
+            return new String(chars, start, length);
+        }
+
+        private void bind() {
+            if (CsvRow.this.generation == generation) {
+                return;
+            }
+
+            if (index.size() <= field) {
+                throw new IllegalStateException("field " + field + " is not part of the current row");
+            }
+
+            generation = CsvRow.this.generation;
+
+            char[] source = index.getSource();
+            if (null != source && !index.isEscaped(field)) {
+                chars = source;
+                start = index.getStart(field);
+                length = index.getEnd(field) - start;
+
+                return;
+            }
+
+            int capacity = index.getEnd(field) - index.getStart(field);
+            if (null == decoded || decoded.length < capacity) {
+                decoded = new char[Math.max(capacity, 16)];
+            }
+
+            chars = decoded;
+            start = 0;
+            length = index.getChars(field, decoded);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.polyglotsoft.csv;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of column conditions that a line has to meet, see {@link CsvParser#withFilter(CsvRowFilter)}. Every
+ * method returns a new filter with one more condition; conditions on the same column must all hold. Columns are zero
+ * based positions in the line, independent of any projection, and a line missing a filtered column is rejected.
+ */
+public final class CsvRowFilter {
+    private final CsvFieldPredicate[] predicates;
+
+    public CsvRowFilter() {
+        this(new CsvFieldPredicate[0]);
+    }
+
+    private CsvRowFilter(CsvFieldPredicate[] predicates) {
+        this.predicates = predicates;
+    }
+
+    public CsvRowFilter equalTo(int column, CharSequence value) {
+        String expected = value.toString();
+
+        return matching(column, (index, field) -> index.contentEquals(field, expected));
+    }
+
+    public CsvRowFilter startsWith(int column, CharSequence prefix) {
+        String expected = prefix.toString();
+
+        return matching(column, (index, field) -> index.startsWith(field, expected));
+    }
+
+    /**
+     * Keeps lines whose column is a number between {@code min} and {@code max}, both inclusive. Blank and non numeric
+     * fields do not match.
+     */
+    public CsvRowFilter between(int column, double min, double max) {
+        return matching(column, (index, field) -> {
+            if (index.isBlank(field)) {
+                return false;
+            }
+
+            try {
+                double value = index.getDouble(field);
+
+                return min <= value && value <= max;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        });
+    }
+
+    public CsvRowFilter matching(int column, CsvFieldPredicate predicate) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must not be negative: " + column);
+        }
+
+        if (null == predicate) {
+            throw new IllegalArgumentException("predicate must not be null");
+        }
+
+        CsvFieldPredicate[] result = Arrays.copyOf(predicates, Math.max(predicates.length, column + 1));
+        CsvFieldPredicate existing = result[column];
+
+        result[column] = null == existing ? predicate
+                : (index, field) -> existing.test(index, field) && predicate.test(index, field);
+
+        return new CsvRowFilter(result);
+    }
+
+    CsvFieldPredicate[] getPredicates() {
+        return predicates;
+    }
+}
@@ -0,0 +1,234 @@
+package com.polyglotsoft.csv;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One row group of a columnar file, read from mapped bytes. Columns are addressed by their CSV column, as in
+ * {@link CsvColumnBatch}, and their values are returned as read-only views without copying; rows whose field was
+ * missing or blank hold 0 (or code 0) and are reported by {@link #isNull(int, int)}. String dictionaries are decoded on
+ * first use.
+ */
+public final class CsvRowGroup {
+    private final ByteBuffer bytes;
+    private final int[] columns;
+    private final int[] types;
+    private final int size;
+    private final int[] nullCounts;
+    private final int[] nullsAt;
+    private final int[] valuesAt;
+    private final int[] dictionariesAt;
+    private final long[] minLongs;
+    private final long[] maxLongs;
+    private final String[] minStrings;
+    private final String[] maxStrings;
+    private final String[][] dictionaries;
+
+    CsvRowGroup(ByteBuffer bytes, int[] columns, int[] types) {
+        int count = columns.length;
+
+        this.bytes = bytes;
+        this.columns = columns;
+        this.types = types;
+        this.size = bytes.getInt(0);
+        this.nullCounts = new int[count];
+        this.nullsAt = new int[count];
+        this.valuesAt = new int[count];
+        this.dictionariesAt = new int[count];
+        this.minLongs = new long[count];
+        this.maxLongs = new long[count];
+        this.minStrings = new String[count];
+        this.maxStrings = new String[count];
+        this.dictionaries = new String[count][];
+
+        int position = Integer.BYTES;
+        for (int i = 0; i < count; ++i) {
+            nullCounts[i] = bytes.getInt(position);
+            nullsAt[i] = ColumnarFormat.align(position + Integer.BYTES);
+            position = nullsAt[i] + Long.BYTES * ((size + 63) >>> 6);
+
+            if (ColumnarFormat.STRING == types[i]) {
+                int minLength = bytes.getInt(position);
+                minStrings[i] = decode(position + Integer.BYTES, minLength);
+                position += Integer.BYTES + Math.max(0, minLength);
+
+                int maxLength = bytes.getInt(position);
+                maxStrings[i] = decode(position + Integer.BYTES, maxLength);
+                position += Integer.BYTES + Math.max(0, maxLength);
+
+                dictionariesAt[i] = position;
+                int entries = bytes.getInt(position);
+                position += Integer.BYTES;
+                for (int entry = 0; entry < entries; ++entry) {
+                    position += Integer.BYTES + bytes.getInt(position);
+                }
+
+                valuesAt[i] = ColumnarFormat.align(position);
+                position = valuesAt[i] + Integer.BYTES * size;
+            } else {
+                // doubles keep their bits in the long statistics
+                minLongs[i] = bytes.getLong(position);
+                maxLongs[i] = bytes.getLong(position + Long.BYTES);
+
+                valuesAt[i] = ColumnarFormat.align(position + 2 * Long.BYTES);
+                position = valuesAt[i] + (ColumnarFormat.INT == types[i] ? Integer.BYTES : Long.BYTES) * size;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int column, int row) {
+        if (row < 0 || size <= row) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+        }
+
+        return 0 != (bytes.getLong(nullsAt[slot(column, -1)] + Long.BYTES * (row >>> 6)) & (1L << row));
+    }
+
+    public int getNullCount(int column) {
+        return nullCounts[slot(column, -1)];
+    }
+
+    public IntBuffer getInts(int column) {
+        return view(slot(column, ColumnarFormat.INT), Integer.BYTES).asIntBuffer();
+    }
+
+    public LongBuffer getLongs(int column) {
+        return view(slot(column, ColumnarFormat.LONG), Long.BYTES).asLongBuffer();
+    }
+
+    public DoubleBuffer getDoubles(int column) {
+        return view(slot(column, ColumnarFormat.DOUBLE), Double.BYTES).asDoubleBuffer();
+    }
+
+    /**
+     * Returns the dictionary codes of a string column; {@link #getDictionary(int)} maps them back to values.
+     */
+    public IntBuffer getCodes(int column) {
+        return view(slot(column, ColumnarFormat.STRING), Integer.BYTES).asIntBuffer();
+    }
+
+    public String[] getDictionary(int column) {
+        return dictionary(slot(column, ColumnarFormat.STRING)).clone();
+    }
+
+    public String getString(int column, int row) {
+        int slot = slot(column, ColumnarFormat.STRING);
+
+        return isNull(column, row) ? null
+                : dictionary(slot)[bytes.getInt(valuesAt[slot] + Integer.BYTES * row)];
+    }
+
+    /**
+     * Smallest value of an int or long column, or {@link Long#MAX_VALUE} when every row is null.
+     */
+    public long getMinLong(int column) {
+        return minLongs[integralSlot(column)];
+    }
+
+    /**
+     * Largest value of an int or long column, or {@link Long#MIN_VALUE} when every row is null.
+     */
+    public long getMaxLong(int column) {
+        return maxLongs[integralSlot(column)];
+    }
+
+    /**
+     * Smallest value of a double column, or positive infinity when every row is null.
+     */
+    public double getMinDouble(int column) {
+        return Double.longBitsToDouble(minLongs[slot(column, ColumnarFormat.DOUBLE)]);
+    }
+
+    /**
+     * Largest value of a double column, or negative infinity when every row is null.
+     */
+    public double getMaxDouble(int column) {
+        return Double.longBitsToDouble(maxLongs[slot(column, ColumnarFormat.DOUBLE)]);
+    }
+
+    /**
+     * Smallest value of a string column in {@link String#compareTo(String)} order, or null when every row is null.
+     */
+    public String getMinString(int column) {
+        return minStrings[slot(column, ColumnarFormat.STRING)];
+    }
+
+    public String getMaxString(int column) {
+        return maxStrings[slot(column, ColumnarFormat.STRING)];
+    }
+
+    private ByteBuffer view(int slot, int width) {
+        ByteBuffer view = bytes.duplicate();
+        ((Buffer) view).limit(valuesAt[slot] + width * size).position(valuesAt[slot]);
+
+        return view.slice().order(ColumnarFormat.ORDER);
+    }
+
+    private String[] dictionary(int slot) {
+        String[] dictionary = dictionaries[slot];
+
+        if (null == dictionary) {
+            int position = dictionariesAt[slot];
+            dictionary = new String[bytes.getInt(position)];
+            position += Integer.BYTES;
+
+            for (int code = 0; code < dictionary.length; ++code) {
+                int length = bytes.getInt(position);
+
+                dictionary[code] = decode(position + Integer.BYTES, length);
+                position += Integer.BYTES + length;
+            }
+
+            dictionaries[slot] = dictionary;
+        }
+
+        return dictionary;
+    }
+
+    private String decode(int position, int length) {
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] utf8 = new byte[length];
+        ByteBuffer source = bytes.duplicate();
+        ((Buffer) source).position(position);
+        source.get(utf8);
+
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private int integralSlot(int column) {
+        int slot = slot(column, -1);
+
+        if (ColumnarFormat.INT != types[slot] && ColumnarFormat.LONG != types[slot]) {
+            throw new IllegalArgumentException("column " + column + " has a different type");
+        }
+
+        return slot;
+    }
+
+    private int slot(int column, int type) {
+        for (int i = 0; i < columns.length; ++i) {
+            if (columns[i] != column) {
+                continue;
+            }
+
+            if (-1 != type && types[i] != type) {
+                throw new IllegalArgumentException("column " + column + " has a different type");
+            }
+
+            return i;
+        }
+
+        throw new IllegalArgumentException("column not stored: " + column);
+    }
+}
@@ -0,0 +1,273 @@
+package com.polyglotsoft.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Byte offsets of every {@code stride}-th record of a file, so a reader can start at any row after scanning at most
+ * {@code stride - 1} records. Rows are numbered like {@link MappedCsvReader} returns them without a filter: empty lines
+ * are not rows, and line breaks inside quotations do not end one. The index can be kept next to the file with
+ * {@link #write(Path)} and loaded again with {@link #read(Path)}. Records are found without resynchronizing, so
+ * parsers with an error policy that resynchronizes are rejected.
+ */
+public final class CsvRowIndex {
+    public static final int STRIDE = 1024;
+
+    private static final int MAGIC = 0x43535649;
+    private static final int SCAN_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final char delimiter;
+    private final char quotation;
+    private final int stride;
+    private final long rowCount;
+    private final long fileSize;
+    private final long[] offsets;
+
+    private CsvRowIndex(char delimiter, char quotation, int stride, long rowCount, long fileSize, long[] offsets) {
+        this.delimiter = delimiter;
+        this.quotation = quotation;
+        this.stride = stride;
+        this.rowCount = rowCount;
+        this.fileSize = fileSize;
+        this.offsets = offsets;
+    }
+
+    public static CsvRowIndex build(Path path, CsvParser parser, int stride) throws IOException {
+        return build(path, parser, stride, SCAN_WINDOW_SIZE);
+    }
+
+    public static CsvRowIndex build(Path path, CsvParser parser) throws IOException {
+        return build(path, parser, STRIDE, SCAN_WINDOW_SIZE);
+    }
+
+    static CsvRowIndex build(Path path, CsvParser parser, int stride, int windowSize) throws IOException {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("stride must be positive: " + stride);
+        }
+
+        checkPolicy(parser);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            RecordCursor cursor = new RecordCursor(channel, 0, parser.getDelimiter(), parser.getQuotation(),
+                    windowSize);
+            long[] offsets = new long[16];
+            int count = 0;
+            long rows = 0;
+
+            for (long start = cursor.next(); -1 != start; start = cursor.next()) {
+                if (0 == rows % stride) {
+                    if (offsets.length == count) {
+                        offsets = Arrays.copyOf(offsets, count << 1);
+                    }
+
+                    offsets[count++] = start;
+                }
+
+                ++rows;
+            }
+
+            return new CsvRowIndex(parser.getDelimiter(), parser.getQuotation(), stride, rows, channel.size(),
+                    Arrays.copyOf(offsets, count));
+        }
+    }
+
+    public static CsvRowIndex read(Path indexPath) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (MAGIC != input.readInt()) {
+                throw new IOException("Not a row index: " + indexPath);
+            }
+
+            char delimiter = input.readChar();
+            char quotation = input.readChar();
+            int stride = input.readInt();
+            long rowCount = input.readLong();
+            long fileSize = input.readLong();
+            long[] offsets = new long[input.readInt()];
+
+            for (int i = 0; i < offsets.length; ++i) {
+                offsets[i] = input.readLong();
+            }
+
+            return new CsvRowIndex(delimiter, quotation, stride, rowCount, fileSize, offsets);
+        }
+    }
+
+    public void write(Path indexPath) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(indexPath)))) {
+            output.writeInt(MAGIC);
+            output.writeChar(delimiter);
+            output.writeChar(quotation);
+            output.writeInt(stride);
+            output.writeLong(rowCount);
+            output.writeLong(fileSize);
+            output.writeInt(offsets.length);
+
+            for (long offset : offsets) {
+                output.writeLong(offset);
+            }
+        }
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Size of the file when the index was built; a file of another size needs a new index.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Returns the byte offset of {@code row}, scanning forward from the nearest indexed record, or the file size when
+     * {@code row} equals {@link #getRowCount()}.
+     */
+    public long getOffset(Path path, CsvParser parser, long row) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return seek(channel, parser, row);
+        }
+    }
+
+    /**
+     * Opens a reader whose first record is {@code row}. The parser's projection and filter apply to the records read
+     * from there on, while {@code row} counts every record.
+     */
+    public MappedCsvReader open(Path path, CsvParser parser, long row, int windowSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return new MappedCsvReader(channel, seek(channel, parser, row), -1, parser, windowSize, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    public MappedCsvReader open(Path path, CsvParser parser, long row) throws IOException {
+        return open(path, parser, row, MappedCsvReader.WINDOW_SIZE);
+    }
+
+    private long seek(FileChannel channel, CsvParser parser, long row) throws IOException {
+        if (row < 0 || rowCount < row) {
+            throw new IllegalArgumentException("row must be between 0 and " + rowCount + ": " + row);
+        }
+
+        if (delimiter != parser.getDelimiter() || quotation != parser.getQuotation()) {
+            throw new IllegalArgumentException("The index was built for another delimiter or quotation");
+        }
+
+        checkPolicy(parser);
+
+        if (fileSize != channel.size()) {
+            throw new IOException("The file changed since the index was built: " + channel.size()
+                    + " bytes instead of " + fileSize);
+        }
+
+        if (rowCount == row) {
+            return fileSize;
+        }
+
+        RecordCursor cursor = new RecordCursor(channel, offsets[(int) (row / stride)], delimiter, quotation,
+                SCAN_WINDOW_SIZE);
+        long start = cursor.next();
+
+        for (long skip = row % stride; 0 < skip; --skip) {
+            start = cursor.next();
+        }
+
+        return start;
+    }
+
+    private static void checkPolicy(CsvParser parser) {
+        if (parser.getTokenizer().resyncs()) {
+            throw new IllegalArgumentException("A row index does not resynchronize after an unclosed quotation, so it"
+                    + " cannot be used with the " + parser.getErrorPolicy() + " error policy");
+        }
+    }
+
+    /**
+     * Walks record starts through consecutive windows of the file. The scanner keeps its state between windows, so a
+     * record crossing a window needs no second pass.
+     */
+    private static final class RecordCursor {
+        private final FileChannel channel;
+        private final RecordScanner scanner;
+        private final long end;
+        private final int windowSize;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+        private int windowLimit;
+        private int position;
+
+        RecordCursor(FileChannel channel, long start, char delimiter, char quotation, int windowSize)
+                throws IOException {
+            this.channel = channel;
+            this.scanner = new RecordScanner(delimiter, quotation);
+            this.end = channel.size();
+            this.windowSize = windowSize;
+            this.windowStart = start;
+        }
+
+        /**
+         * Returns the offset of the next non-empty record and moves past it, or -1 at the end of the file.
+         */
+        long next() throws IOException {
+            long start = -1;
+
+            while (true) {
+                if (position == windowLimit && !map(windowStart + windowLimit)) {
+                    scanner.reset();
+
+                    return start;
+                }
+
+                int from = position;
+                int recordEnd = scanner.findRecordEnd(window, from, windowLimit);
+                if (-1 == start && from < (-1 == recordEnd ? windowLimit : recordEnd)) {
+                    start = windowStart + from;
+                }
+
+                if (-1 == recordEnd) {
+                    position = windowLimit;
+                } else {
+                    position = recordEnd + 1;
+
+                    if (-1 != start) {
+                        return start;
+                    }
+                }
+            }
+        }
+
+        private boolean map(long offset) throws IOException {
+            long length = Math.min(windowSize, end - offset);
+            if (length <= 0) {
+                return false;
+            }
+
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            windowStart = offset;
+            windowLimit = (int) length;
+            position = 0;
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable column names of a file, usually its first record. Names are resolved through an open addressing table
+ * built once, so a lookup costs the cached {@link String#hashCode()} of the name and one or two comparisons, without
+ * allocating. When a name appears more than once its first column wins.
+ */
+public final class CsvSchema {
+    private final String[] names;
+    private final String[] keys;
+    private final int[] columns;
+
+    public CsvSchema(String... names) {
+        this.names = names.clone();
+
+        int capacity = Integer.highestOneBit(Math.max(1, names.length) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.columns = new int[capacity];
+
+        for (int column = 0; column < names.length; ++column) {
+            String name = names[column];
+            if (null == name) {
+                continue;
+            }
+
+            int slot = slot(name);
+            while (null != keys[slot] && !keys[slot].equals(name)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+
+            if (null == keys[slot]) {
+                keys[slot] = name;
+                columns[slot] = column;
+            }
+        }
+    }
+
+    /**
+     * Reads the first record of {@code reader} as the header, returning null when the input is empty. The reader's
+     * parser decides the columns: a {@code columnLimit} or a projection applies to the header as to every other
+     * record. A reader that drops records, through a row filter or the {@link CsvErrorPolicy#SKIP} policy, could
+     * drop the header and return a data row in its place, so such a {@link CsvReader} or {@link MappedCsvReader} is
+     * rejected; read the header with {@link #parse(CsvParser, String)} or another reader instead.
+     */
+    public static CsvSchema read(CsvRecordReader reader) throws IOException {
+        CsvParser parser = reader instanceof CsvReader ? ((CsvReader) reader).getParser()
+                : reader instanceof MappedCsvReader ? ((MappedCsvReader) reader).getParser() : null;
+
+        if (null != parser && null != parser.getFilter()) {
+            throw new IllegalArgumentException("cannot read the header through a row filter");
+        }
+
+        if (null != parser && CsvErrorPolicy.SKIP == parser.getErrorPolicy()) {
+            throw new IllegalArgumentException("cannot read the header with an error policy that skips records");
+        }
+
+        String[] header = reader.readRecord();
+
+        return null == header ? null : new CsvSchema(header);
+    }
+
+    /**
+     * Parses {@code line} as the header with the settings of {@code parser}, except for its row filter, which is
+     * meant for the data rows.
+     *
+     * @throws IllegalArgumentException when the {@link CsvErrorPolicy#SKIP} policy drops the malformed header
+     */
+    public static CsvSchema parse(CsvParser parser, String line) {
+        String[] header = (null == parser.getFilter() ? parser : parser.withFilter(null)).parseLine(line);
+
+        if (null == header) {
+            throw new IllegalArgumentException("malformed header skipped by the error policy: " + line);
+        }
+
+        return new CsvSchema(header);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int column) {
+        return names[column];
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Returns the column of {@code name}, or -1 when the schema has no such column.
+     */
+    public int indexOf(String name) {
+        int slot = slot(name);
+
+        for (String key = keys[slot]; null != key; key = keys[slot]) {
+            if (key == name || key.equals(name)) {
+                return columns[slot];
+            }
+
+            slot = (slot + 1) & (keys.length - 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the columns of {@code names} in the given order, ready for {@link CsvParser#withProjection(int...)}.
+     */
+    public int[] indexesOf(String... names) {
+        int[] result = new int[names.length];
+
+        for (int i = 0; i < names.length; ++i) {
+            result[i] = indexOf(names[i]);
+
+            if (-1 == result[i]) {
+                throw new IllegalArgumentException("column not in schema: " + names[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the schema of the records of a parser projected to {@code names}, see
+     * {@link CsvParser#withProjection(CsvSchema, String...)}.
+     */
+    public CsvSchema select(String... names) {
+        indexesOf(names);
+
+        return new CsvSchema(names);
+    }
+
+    public CsvRecord record(String[] values) {
+        return new CsvRecord(this, values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+
+    private int slot(String name) {
+        int hash = name.hashCode();
+
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+}
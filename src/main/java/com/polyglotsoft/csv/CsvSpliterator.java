@@ -0,0 +1,130 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator over the records of a file. Record boundaries are planned with {@link ChunkPlanner} on the first
+ * {@link #trySplit()}, so sequential streams never pay for the planning pass, and every split hands out whole ranges
+ * of records. A parser whose error policy resynchronizes is never split, so its records match a sequential reader.
+ */
+final class CsvSpliterator<T> implements Spliterator<T> {
+    static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final CsvParser parser;
+    private final Function<CsvFieldIndex, T> mapper;
+    private final int chunkSize;
+    private final CsvFieldIndex index = new CsvFieldIndex();
+
+    private long[] boundaries;
+    private int from;
+    private int to;
+    private long start;
+    private long end;
+    private MappedCsvReader reader;
+
+    CsvSpliterator(FileChannel channel, CsvParser parser, Function<CsvFieldIndex, T> mapper, int chunkSize)
+            throws IOException {
+        this.channel = channel;
+        this.parser = parser;
+        this.mapper = mapper;
+        this.chunkSize = chunkSize;
+        this.end = channel.size();
+    }
+
+    CsvSpliterator(FileChannel channel, CsvParser parser, Function<CsvFieldIndex, T> mapper) throws IOException {
+        this(channel, parser, mapper, chunkSize(channel.size()));
+    }
+
+    private CsvSpliterator(CsvSpliterator<T> parent, int from, int to) {
+        this.channel = parent.channel;
+        this.parser = parent.parser;
+        this.mapper = parent.mapper;
+        this.chunkSize = parent.chunkSize;
+        this.boundaries = parent.boundaries;
+        this.from = from;
+        this.to = to;
+        this.start = boundaries[from];
+        this.end = boundaries[to];
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (null == reader) {
+                reader = new MappedCsvReader(channel, start, end, parser,
+                        (int) Math.min(MappedCsvReader.WINDOW_SIZE, Math.max(1, end - start)), false);
+            }
+
+            if (!reader.readRecord(index)) {
+                return false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        action.accept(mapper.apply(index));
+
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // where a resynchronizing reader cuts a record depends on everything before it, so such a file is not split
+        if (null != reader || parser.getTokenizer().resyncs()) {
+            return null;
+        }
+
+        if (null == boundaries) {
+            if (end < (long) chunkSize << 1) {
+                return null;
+            }
+
+            try {
+                boundaries = ChunkPlanner.plan(channel, parser, chunkSize, ForkJoinPool.commonPool());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            from = 0;
+            to = boundaries.length - 1;
+        }
+
+        if (to - from < 2) {
+            return null;
+        }
+
+        int middle = (from + to) >>> 1;
+        CsvSpliterator<T> prefix = new CsvSpliterator<>(this, from, middle);
+
+        from = middle;
+        start = boundaries[middle];
+
+        return prefix;
+    }
+
+    /**
+     * The record count is unknown until the range is parsed, so the remaining byte count stands in for it.
+     */
+    @Override
+    public long estimateSize() {
+        return end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private static int chunkSize(long size) {
+        long perTask = size / ((long) ForkJoinPool.getCommonPoolParallelism() << 2);
+
+        return (int) Math.min(ParallelCsvParser.CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, perTask));
+    }
+}
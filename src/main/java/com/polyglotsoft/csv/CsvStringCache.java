@@ -0,0 +1,121 @@
+package com.polyglotsoft.csv;
+
+/**
+ * Per column deduplication of field Strings for low cardinality columns such as codes, flags and enum like values.
+ * Each column has a bounded open addressing table keyed on the raw field, which is hashed and compared in the parse
+ * buffer, so a repeated value costs no allocation. A column that keeps missing is judged high cardinality and its
+ * table is dropped for good.
+ * <p>
+ * A cache can be shared between threads. Races only cost hit rate: Strings are immutable, so a lookup either sees a
+ * complete String or an empty slot, and the hit and miss counters are approximate.
+ */
+public final class CsvStringCache {
+    public static final int CAPACITY = 1024;
+
+    /**
+     * Longer fields are rarely repeated values and are not worth hashing twice.
+     */
+    static final int MAX_LENGTH = 64;
+    static final int WINDOW = 4096;
+
+    private static final int PROBES = 4;
+
+    private final Column[] columns;
+
+    /**
+     * @param columns number of leading columns to cache
+     * @param capacity slots per column, rounded up to a power of two
+     */
+    public CsvStringCache(int columns, int capacity) {
+        if (columns < 0 || capacity <= 0) {
+            throw new IllegalArgumentException("columns: " + columns + ", capacity: " + capacity);
+        }
+
+        int size = Integer.highestOneBit((Math.max(PROBES, capacity) - 1) << 1);
+
+        this.columns = new Column[columns];
+        for (int i = 0; i < columns; ++i) {
+            this.columns[i] = new Column(size);
+        }
+    }
+
+    public CsvStringCache() {
+        this(CsvParser.COLUMN_LIMIT, CAPACITY);
+    }
+
+    /**
+     * Returns the same value as {@link CsvFieldIndex#getString(int)}, reusing an earlier instance of it when the
+     * column still caches. Malformed UTF-8 is hashed and compared with the replacement characters that
+     * {@code getString} decodes it to, so different malformed bytes share a cached String only if they decode alike.
+     */
+    public String getString(CsvFieldIndex index, int field) {
+        String[] table = field < columns.length ? columns[field].table : null;
+
+        if (null == table || index.isMissing(field) || MAX_LENGTH < index.getEnd(field) - index.getStart(field)) {
+            return index.getString(field);
+        }
+
+        Column column = columns[field];
+        int hash = index.getHashCode(field);
+        int mask = table.length - 1;
+        int free = -1;
+
+        for (int i = 0; i < PROBES; ++i) {
+            int slot = (hash + i) & mask;
+            String cached = table[slot];
+
+            if (null == cached) {
+                free = slot;
+
+                break;
+            }
+
+            if (cached.hashCode() == hash && index.contentEquals(field, cached)) {
+                column.count(true);
+
+                return cached;
+            }
+        }
+
+        String value = index.getString(field);
+
+        // a full probe sequence evicts the value in the home slot
+        table[-1 == free ? hash & mask : free] = value;
+        column.count(false);
+
+        return value;
+    }
+
+    public boolean isCaching(int column) {
+        return column < columns.length && null != columns[column].table;
+    }
+
+    private static final class Column {
+        private volatile String[] table;
+        private int lookups;
+        private int misses;
+
+        Column(int size) {
+            table = new String[size];
+        }
+
+        void count(boolean hit) {
+            if (!hit) {
+                ++misses;
+            }
+
+            // lookups races between threads, so it can step past WINDOW and is checked with > instead of !=
+            if (WINDOW > ++lookups) {
+                return;
+            }
+
+            // more misses than hits over a whole window means the values hardly repeat
+            if (WINDOW < misses << 1) {
+                table = null;
+            }
+
+            lookups = 0;
+            misses = 0;
+        }
+    }
+}
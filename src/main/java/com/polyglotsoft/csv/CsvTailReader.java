@@ -0,0 +1,341 @@
+package com.polyglotsoft.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows a UTF-8 (or ASCII) file that is being appended to. Every {@link #poll(Consumer)} reads only the bytes added
+ * since the previous one and passes the records they complete to a consumer; a record is complete once its line break
+ * has been written, so the bytes of an unfinished record, and the scanner state within them, are kept until the rest
+ * arrives. Of a record longer than {@code lineLimit} only one char more is kept, as in {@link CsvReader}, and an error
+ * policy that resynchronizes cuts it at its first line break, so the records do not depend on how the appends were
+ * split. With a checkpoint file the offset of the first undelivered record, the bytes scanned beyond it and the
+ * scanner state are saved after every poll that moved, so a new reader continues where the last one stopped without
+ * scanning the file again. The file is expected to only grow.
+ */
+public final class CsvTailReader implements Closeable {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x43535654;
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Path path;
+    private final Path checkpoint;
+    private final FileChannel channel;
+    private final CsvTokenizer tokenizer;
+    private final CsvStringCache stringCache;
+    private final RecordScanner scanner;
+    private final CsvFieldIndex index = new CsvFieldIndex();
+    private final char delimiter;
+    private final char quotation;
+
+    private ByteBuffer buffer;
+    private long offset;
+    private int length;
+    private int scanned;
+    private int kept = -1;
+    private long dropped;
+    private long row;
+    private long saved;
+
+    public CsvTailReader(Path path, CsvParser parser, Path checkpoint) throws IOException {
+        this(path, parser, checkpoint, BUFFER_SIZE);
+    }
+
+    public CsvTailReader(Path path, CsvParser parser) throws IOException {
+        this(path, parser, null, BUFFER_SIZE);
+    }
+
+    CsvTailReader(Path path, CsvParser parser, Path checkpoint, int bufferSize) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+
+        this.path = path;
+        this.checkpoint = checkpoint;
+        this.tokenizer = parser.getTokenizer();
+        this.stringCache = parser.getStringCache();
+        this.delimiter = parser.getDelimiter();
+        this.quotation = parser.getQuotation();
+        this.scanner = new RecordScanner(delimiter, quotation);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            if (null != checkpoint && Files.exists(checkpoint)) {
+                restore();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Passes the records completed since the last poll to {@code consumer} and saves the checkpoint, returning the
+     * number of records passed.
+     */
+    public int poll(Consumer<String[]> consumer) throws IOException {
+        int delivered = 0;
+        long size = channel.size();
+
+        if (size < end()) {
+            throw new IOException("The file shrank to " + size + " bytes, below the " + end()
+                    + " bytes already read");
+        }
+
+        while (end() < size) {
+            if (length == buffer.capacity()) {
+                grow();
+            }
+
+            ((Buffer) buffer).position(length);
+            int read = channel.read(buffer, end());
+            if (read <= 0) {
+                break;
+            }
+
+            length += read;
+            delivered += scan(consumer);
+        }
+
+        if (null != checkpoint && saved != end()) {
+            save();
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Polls until the reader is closed. A change reported for the directory of the file wakes it up early, otherwise
+     * it polls every {@code interval}, since watch services may be late or blind, as on network file systems.
+     */
+    public void follow(Consumer<String[]> consumer, long interval, TimeUnit unit)
+            throws IOException, InterruptedException {
+        Path directory = path.toAbsolutePath().getParent();
+
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (channel.isOpen()) {
+                try {
+                    poll(consumer);
+                } catch (ClosedChannelException e) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+
+                    return;
+                }
+
+                WatchKey key = watcher.poll(interval, unit);
+                if (null != key) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Byte offset of the first record not passed to a consumer yet.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Number of non-empty records completed so far, the row number of the next one.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * Closes the file; a {@link #follow(Consumer, long, TimeUnit)} running on another thread returns.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int scan(Consumer<String[]> consumer) {
+        int delivered = 0;
+        int start = 0;
+
+        while (true) {
+            int from = scanned;
+            int recordEnd = scanner.findRecordEnd(buffer, scanned, length);
+            int to = -1 == recordEnd ? length : recordEnd;
+            int cut;
+
+            if (-1 == kept) {
+                cut = tokenizer.findCut(buffer, start, to);
+
+                if (-1 == cut && -1 == recordEnd) {
+                    scanned = length;
+
+                    if (tokenizer.isLong(buffer, start, length)) {
+                        // only one char beyond lineLimit is kept, as CsvReader does, the rest is dropped as it
+                        // arrives
+                        kept = tokenizer.keep(buffer, start, length) - start;
+                        dropped += length - start - kept;
+                        length = start + kept;
+                        scanned = length;
+                    }
+
+                    break;
+                }
+            } else {
+                // the kept chars hold no line break, so a cut is at the first line break behind them
+                cut = tokenizer.resyncs() ? CsvTokenizer.indexOfLineBreak(buffer, from, to) : -1;
+
+                if (-1 == cut && -1 == recordEnd) {
+                    dropped += length - from;
+                    length = from;
+                    scanned = length;
+
+                    break;
+                }
+            }
+
+            if (-1 != cut) {
+                scanner.reset();
+            }
+
+            int recordStart = start;
+            int tokenEnd = -1 == kept ? (-1 == cut ? recordEnd : cut) : start + kept;
+            long recordOffset = offset + start;
+
+            scanned = (-1 == cut ? recordEnd : cut) + 1;
+            start = scanned;
+
+            if (-1 != kept) {
+                // the bytes behind the kept ones are gone, so the buffer continues where the file does
+                offset += dropped;
+                dropped = 0;
+                kept = -1;
+            }
+
+            if (recordStart < tokenEnd && -1 != tokenizer.check(index, tokenizer.tokenize(buffer, recordStart,
+                    tokenEnd, index), row++, recordOffset, -1 != cut)) {
+                consumer.accept(index.toArray(stringCache));
+                ++delivered;
+            }
+        }
+
+        if (0 < start) {
+            System.arraycopy(buffer.array(), start, buffer.array(), 0, length - start);
+            offset += start;
+            length -= start;
+            scanned -= start;
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Offset in the file behind the bytes read so far.
+     */
+    private long end() {
+        return offset + dropped + length;
+    }
+
+    private void grow() throws IOException {
+        if (MAX_BUFFER_SIZE == buffer.capacity()) {
+            throw new IOException("Record at " + offset + " is larger than " + MAX_BUFFER_SIZE + " bytes");
+        }
+
+        ByteBuffer grown = ByteBuffer.allocate((int) Math.min((long) buffer.capacity() << 1, MAX_BUFFER_SIZE));
+        System.arraycopy(buffer.array(), 0, grown.array(), 0, length);
+        buffer = grown;
+    }
+
+    private void restore() throws IOException {
+        long end;
+        int state;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (MAGIC != input.readInt()) {
+                throw new IOException("Not a tail checkpoint: " + checkpoint);
+            }
+
+            if (delimiter != input.readChar() || quotation != input.readChar()) {
+                throw new IllegalArgumentException("The checkpoint was saved for another delimiter or quotation");
+            }
+
+            offset = input.readLong();
+            end = input.readLong();
+            kept = input.readInt();
+            state = input.readInt();
+            row = input.readLong();
+        }
+
+        if (channel.size() < end) {
+            throw new IOException("The file is shorter than the checkpoint: " + channel.size() + " bytes instead of "
+                    + end);
+        }
+
+        // the unfinished record is read again but not scanned again, and of a long record only the kept bytes
+        long read = -1 == kept ? end - offset : kept;
+        if (read < 0 || end - offset < read) {
+            throw new IOException("Not a tail checkpoint: " + checkpoint);
+        }
+
+        while (buffer.capacity() < read) {
+            grow();
+        }
+
+        length = (int) read;
+        dropped = end - offset - read;
+        ((Buffer) buffer).limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("File ends at " + (offset + buffer.position()));
+            }
+        }
+
+        ((Buffer) buffer).clear();
+        scanned = length;
+        scanner.restore(state);
+        saved = end;
+    }
+
+    private void save() throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeChar(delimiter);
+            output.writeChar(quotation);
+            output.writeLong(offset);
+            output.writeLong(end());
+            output.writeInt(kept);
+            output.writeInt(scanner.getState());
+            output.writeLong(row);
+        }
+
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        saved = end();
+    }
+}
@@ -0,0 +1,563 @@
+package com.polyglotsoft.csv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Single pass field splitter recording field offsets instead of copying. A field is quoted when its first non
+ * whitespace character is the quotation, except for an empty {@code ""} pair followed by more content, which stays
+ * unquoted. Anything between a closing quotation and the next delimiter is dropped, doubled quotations collapse into
+ * one, and once a quotation is left unclosed the rest of the line is split on the delimiter alone. Whitespace means
+ * ASCII whitespace, for text as for bytes, so a line splits the same either way.
+ * <p>
+ * With a projection only the projected columns are recorded, in projection order, and the scan stops after the last
+ * projected column; columns missing from the line are recorded as missing.
+ * <p>
+ * A filter is checked as soon as each filtered column is recorded, so a rejected line is abandoned right there and
+ * {@code tokenize} returns -1. Lines without every filtered column are rejected too.
+ * <p>
+ * Lines cut by {@code lineLimit} or {@code columnLimit} and unclosed quotations are flagged on the index and, when a
+ * listener is set, reported to it with the parse time. Without a listener the only cost is one null check.
+ */
+final class CsvTokenizer {
+    private static final boolean[] WHITESPACE = new boolean[128];
+
+    static {
+        for (int c = 0; c < WHITESPACE.length; ++c) {
+            WHITESPACE[c] = Character.isWhitespace(c);
+        }
+    }
+
+    private final char delimiter;
+    private final char quotation;
+    private final int lineLimit;
+    private final int scanLimit;
+    private final int visible;
+    private final int fieldCount;
+    private final int[] slots;
+    private final CsvFieldPredicate[] predicates;
+    private final int lastFiltered;
+    private final CsvParseListener listener;
+    private final CsvErrorPolicy errorPolicy;
+    private final CsvErrorSink errorSink;
+
+    CsvTokenizer(char delimiter, char quotation, int lineLimit, int columnLimit, int[] projection,
+            CsvRowFilter filter, CsvParseListener listener, CsvErrorPolicy errorPolicy, CsvErrorSink errorSink) {
+        this.delimiter = delimiter;
+        this.listener = listener;
+        this.errorPolicy = errorPolicy;
+        this.errorSink = errorSink;
+        this.quotation = quotation;
+        this.lineLimit = lineLimit;
+        this.predicates = null == filter ? new CsvFieldPredicate[0] : filter.getPredicates();
+
+        int last = -1;
+        for (int column = 0; column < predicates.length; ++column) {
+            if (null != predicates[column]) {
+                last = column;
+            }
+        }
+        this.lastFiltered = last;
+
+        if (null == projection) {
+            this.scanLimit = Math.max(columnLimit, lastFiltered + 1);
+            this.visible = columnLimit;
+            this.fieldCount = 0;
+            this.slots = null;
+        } else {
+            for (int column : projection) {
+                last = Math.max(last, column);
+            }
+
+            this.scanLimit = last + 1;
+            this.visible = projection.length;
+            this.slots = new int[last + 1];
+
+            Arrays.fill(slots, -1);
+            for (int i = 0; i < projection.length; ++i) {
+                slots[projection[i]] = i;
+            }
+
+            // filtered columns outside the projection get hidden slots after the projected ones
+            int count = projection.length;
+            for (int column = 0; column <= lastFiltered; ++column) {
+                if (null != predicates[column] && -1 == slots[column]) {
+                    slots[column] = count++;
+                }
+            }
+            this.fieldCount = count;
+        }
+    }
+
+    CsvTokenizer(char delimiter, char quotation, int lineLimit, int columnLimit) {
+        this(delimiter, quotation, lineLimit, columnLimit, null, null, null, null, null);
+    }
+
+    /**
+     * True when readers should cut records longer than {@code lineLimit} at their first line break.
+     */
+    boolean resyncs() {
+        return CsvErrorPolicy.LENIENT == errorPolicy || CsvErrorPolicy.SKIP == errorPolicy;
+    }
+
+    /**
+     * Applies the error policy to a tokenized line, returning {@code fields}, or -1 when the line is dropped.
+     * {@code cut} tells that a reader ended the line early to resynchronize.
+     */
+    int check(CsvFieldIndex index, int fields, long row, long offset, boolean cut) {
+        if (null == errorPolicy || -1 == fields) {
+            return fields;
+        }
+
+        CsvError.Reason reason;
+        if (cut || index.hasUnclosedQuotation()) {
+            reason = CsvError.Reason.UNCLOSED_QUOTATION;
+        } else if (index.isLineTruncated()) {
+            reason = CsvError.Reason.LINE_TOO_LONG;
+        } else if (index.isColumnTruncated()) {
+            reason = CsvError.Reason.TOO_MANY_COLUMNS;
+        } else {
+            return fields;
+        }
+
+        CsvError error = new CsvError(row, offset, reason);
+        if (null != errorSink) {
+            errorSink.add(error);
+        }
+
+        switch (errorPolicy) {
+            case STRICT:
+                throw new CsvFormatException(error);
+            case SKIP:
+                return reject(index);
+            default:
+                return fields;
+        }
+    }
+
+    int tokenize(char[] chars, int from, int to, CsvFieldIndex index) {
+        if (null == listener) {
+            return split(chars, from, to, index);
+        }
+
+        long start = System.nanoTime();
+
+        return report(to - from, split(chars, from, to, index), index, start);
+    }
+
+    int tokenize(ByteBuffer bytes, int from, int to, CsvFieldIndex index) {
+        if (null == listener) {
+            return split(bytes, from, to, index);
+        }
+
+        long start = System.nanoTime();
+
+        return report(to - from, split(bytes, from, to, index), index, start);
+    }
+
+    private int split(char[] chars, int from, int to, CsvFieldIndex index) {
+        index.reset(chars, quotation);
+        project(index);
+
+        if (lineLimit < to - from) {
+            to = from + lineLimit;
+
+            // a surrogate pair is kept whole or not at all, like a four byte sequence in split(ByteBuffer, ...)
+            if (from < to && Character.isHighSurrogate(chars[to - 1]) && Character.isLowSurrogate(chars[to])) {
+                --to;
+            }
+
+            index.setLineTruncated();
+        }
+
+        if (from == to) {
+            return finish(index, 0);
+        }
+
+        char d = delimiter;
+        char q = quotation;
+        boolean unclosed = false;
+        int i = from;
+        int column;
+        for (column = 0; column < scanLimit; ++column) {
+            int fieldStart = i;
+            boolean added = false;
+
+            if (!unclosed) {
+                int p = skipWhitespace(chars, i, to, d);
+
+                if (p < to && q == chars[p]) {
+                    if (p + 1 < to && q == chars[p + 1] && (p + 2 == to || q != chars[p + 2])) {
+                        int k = skipWhitespace(chars, p + 2, to, d);
+
+                        if (k == to || d == chars[k]) {
+                            if (!add(index, column, k, k, false)) {
+                                return reject(index);
+                            }
+
+                            i = k;
+                            added = true;
+                        }
+                    } else {
+                        boolean escaped = false;
+                        int close = -1;
+                        for (int k = p + 1; k < to; ++k) {
+                            if (q == chars[k]) {
+                                if (k + 1 < to && q == chars[k + 1]) {
+                                    escaped = true;
+                                    ++k;
+
+                                    continue;
+                                }
+
+                                close = k;
+
+                                break;
+                            }
+                        }
+
+                        if (-1 == close) {
+                            unclosed = true;
+                        } else {
+                            if (!add(index, column, p + 1, close, escaped)) {
+                                return reject(index);
+                            }
+
+                            i = close + 1;
+                            while (i < to && d != chars[i]) {
+                                ++i;
+                            }
+
+                            added = true;
+                        }
+                    }
+                }
+            }
+
+            if (!added) {
+                boolean escaped = false;
+                i = fieldStart;
+                while (i < to) {
+                    char c = chars[i];
+
+                    if (d == c) {
+                        break;
+                    }
+
+                    if (q == c) {
+                        escaped = true;
+                    }
+
+                    ++i;
+                }
+
+                if (!add(index, column, fieldStart, i, escaped)) {
+                    return reject(index);
+                }
+            }
+
+            if (i == to) {
+                break;
+            }
+
+            ++i;
+        }
+
+        if (unclosed) {
+            index.setUnclosed();
+        }
+
+        // the loop only runs out of columns while the line goes on
+        if (column == scanLimit && null == slots) {
+            index.setColumnTruncated();
+        }
+
+        return finish(index, Math.min(column + 1, scanLimit));
+    }
+
+    private int split(ByteBuffer bytes, int from, int to, CsvFieldIndex index) {
+        index.reset(bytes, quotation);
+        project(index);
+
+        int limit = skipChars(bytes, from, to, lineLimit);
+        if (limit < to) {
+            to = limit;
+
+            index.setLineTruncated();
+        }
+        if (from == to) {
+            return finish(index, 0);
+        }
+
+        byte d = (byte) delimiter;
+        byte q = (byte) quotation;
+        boolean unclosed = false;
+        int i = from;
+        int column;
+        for (column = 0; column < scanLimit; ++column) {
+            int fieldStart = i;
+            boolean added = false;
+
+            if (!unclosed) {
+                int p = skipWhitespace(bytes, i, to, d);
+
+                if (p < to && q == bytes.get(p)) {
+                    if (p + 1 < to && q == bytes.get(p + 1) && (p + 2 == to || q != bytes.get(p + 2))) {
+                        int k = skipWhitespace(bytes, p + 2, to, d);
+
+                        if (k == to || d == bytes.get(k)) {
+                            if (!add(index, column, k, k, false)) {
+                                return reject(index);
+                            }
+
+                            i = k;
+                            added = true;
+                        }
+                    } else {
+                        boolean escaped = false;
+                        int close = -1;
+                        for (int k = Swar.indexOf(bytes, p + 1, to, q); k < to; k = Swar.indexOf(bytes, k + 2, to, q)) {
+                            if (k + 1 == to || q != bytes.get(k + 1)) {
+                                close = k;
+
+                                break;
+                            }
+
+                            escaped = true;
+                        }
+
+                        if (-1 == close) {
+                            unclosed = true;
+                        } else {
+                            if (!add(index, column, p + 1, close, escaped)) {
+                                return reject(index);
+                            }
+
+                            i = Swar.indexOf(bytes, close + 1, to, d);
+                            added = true;
+                        }
+                    }
+                }
+            }
+
+            if (!added) {
+                boolean escaped = false;
+                i = Swar.indexOfAny(bytes, fieldStart, to, d, q);
+                if (i < to && q == bytes.get(i)) {
+                    escaped = true;
+                    i = Swar.indexOf(bytes, i + 1, to, d);
+                }
+
+                if (!add(index, column, fieldStart, i, escaped)) {
+                    return reject(index);
+                }
+            }
+
+            if (i == to) {
+                break;
+            }
+
+            ++i;
+        }
+
+        if (unclosed) {
+            index.setUnclosed();
+        }
+
+        // the loop only runs out of columns while the line goes on
+        if (column == scanLimit && null == slots) {
+            index.setColumnTruncated();
+        }
+
+        return finish(index, Math.min(column + 1, scanLimit));
+    }
+
+    private void project(CsvFieldIndex index) {
+        for (int i = 0; i < fieldCount; ++i) {
+            index.addMissing();
+        }
+    }
+
+    /**
+     * Records the field and runs the filter on it; false means the line is rejected.
+     */
+    private boolean add(CsvFieldIndex index, int column, int start, int end, boolean escaped) {
+        int field;
+        if (null == slots) {
+            field = index.size();
+
+            index.add(start, end, escaped);
+        } else {
+            field = slots[column];
+
+            if (-1 == field) {
+                return true;
+            }
+
+            index.set(field, start, end, escaped);
+        }
+
+        return column >= predicates.length || null == predicates[column] || predicates[column].test(index, field);
+    }
+
+    /**
+     * Rejects lines too short to reach every filtered column and hides the fields kept only for the filter.
+     */
+    private int finish(CsvFieldIndex index, int columns) {
+        if (columns <= lastFiltered) {
+            return reject(index);
+        }
+
+        // fields kept for the filter beyond columnLimit are cut as well
+        if (visible < index.size() && null == slots) {
+            index.setColumnTruncated();
+        }
+
+        index.truncate(visible);
+
+        return index.size();
+    }
+
+    private int report(int length, int fields, CsvFieldIndex index, long start) {
+        long nanos = System.nanoTime() - start;
+
+        if (index.isLineTruncated()) {
+            listener.lineTruncated(length);
+        }
+
+        if (index.isColumnTruncated()) {
+            listener.columnTruncated(length);
+        }
+
+        if (index.hasUnclosedQuotation()) {
+            listener.unclosedQuotation(length);
+        }
+
+        if (-1 == fields) {
+            listener.recordFiltered(length, nanos);
+        } else {
+            listener.recordParsed(length, fields, nanos);
+        }
+
+        return fields;
+    }
+
+    private static int reject(CsvFieldIndex index) {
+        index.truncate(0);
+
+        return -1;
+    }
+
+    /**
+     * Returns where a reader that resynchronizes cuts the record between {@code from} and {@code to}: a record longer
+     * than {@code lineLimit} ends at its first line break, so a quotation that is never closed cannot swallow the
+     * lines behind it. Returns -1 when the record is kept whole. Every reader applies this one rule, wherever its
+     * buffers happen to end.
+     */
+    int findCut(char[] chars, int from, int to) {
+        return resyncs() && lineLimit < to - from ? indexOfLineBreak(chars, from, to) : -1;
+    }
+
+    /**
+     * Same as {@link #findCut(char[], int, int)}, with the length of the record counted in chars.
+     */
+    int findCut(ByteBuffer bytes, int from, int to) {
+        return resyncs() && isLong(bytes, from, to) ? indexOfLineBreak(bytes, from, to) : -1;
+    }
+
+    /**
+     * True when the bytes between {@code from} and {@code to} hold more than {@code lineLimit} chars.
+     */
+    boolean isLong(ByteBuffer bytes, int from, int to) {
+        return skipChars(bytes, from, to, lineLimit) < to;
+    }
+
+    /**
+     * Returns the end of the bytes a reader keeps of a record longer than {@code lineLimit}: the first
+     * {@code lineLimit} chars and the whole code point after them, so the tokenizer still sees that the line was
+     * truncated.
+     */
+    int keep(ByteBuffer bytes, int from, int to) {
+        int i = skipChars(bytes, from, to, lineLimit);
+
+        if (i < to) {
+            ++i;
+
+            while (i < to && 0x80 == (bytes.get(i) & 0xC0)) {
+                ++i;
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns the end of the first {@code count} chars from {@code from}, or {@code to} when there are no more. Like
+     * {@code lineLimit}, chars are UTF-16 chars, so continuation bytes are free and four byte sequences count twice.
+     */
+    static int skipChars(ByteBuffer bytes, int from, int to, int count) {
+        if (to - from <= count) {
+            return to;
+        }
+
+        int chars = 0;
+        for (int i = from; i < to; ++i) {
+            int b = bytes.get(i) & 0xFF;
+
+            if (0x80 == (b & 0xC0)) {
+                continue;
+            }
+
+            chars += 0xF0 == (b & 0xF8) ? 2 : 1;
+
+            if (count < chars) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    static int indexOfLineBreak(char[] chars, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (CsvParser.LF == chars[i] || CsvParser.CR == chars[i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    static int indexOfLineBreak(ByteBuffer bytes, int from, int to) {
+        int i = Swar.indexOfAny(bytes, from, to, (byte) CsvParser.LF, (byte) CsvParser.CR);
+
+        return to == i ? -1 : i;
+    }
+
+    private static int skipWhitespace(char[] chars, int from, int to, char d) {
+        int i = from;
+
+        // only ASCII whitespace, so text and UTF-8 bytes of the same line split alike
+        while (i < to && d != chars[i] && chars[i] < WHITESPACE.length && WHITESPACE[chars[i]]) {
+            ++i;
+        }
+
+        return i;
+    }
+
+    private static int skipWhitespace(ByteBuffer bytes, int from, int to, byte d) {
+        int i = from;
+
+        while (i < to) {
+            byte b = bytes.get(i);
+
+            if (d == b || b < 0 || !WHITESPACE[b]) {
+                break;
+            }
+
+            ++i;
+        }
+
+        return i;
+    }
+}
@@ -0,0 +1,196 @@
+package com.polyglotsoft.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes records in the dialect of a {@link CsvParser} through one reusable buffer. A field is quoted only when it
+ * contains the delimiter, the quotation or a line break, and quotations inside it are doubled while copying, so every
+ * record written here reads back to the same fields with {@link CsvParser#parseLine(String)} or a {@link CsvReader}.
+ * Records end with a line feed. Not thread safe.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char LINE_FEED = '\n';
+    private static final char CARRIAGE_RETURN = '\r';
+
+    private final Writer writer;
+    private final char delimiter;
+    private final char quotation;
+    private final char[] buffer;
+
+    private int position;
+
+    public CsvWriter(Writer writer, char delimiter, char quotation, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+
+        this.writer = writer;
+        this.delimiter = delimiter;
+        this.quotation = quotation;
+        this.buffer = new char[bufferSize];
+    }
+
+    public CsvWriter(Writer writer, char delimiter, char quotation) {
+        this(writer, delimiter, quotation, BUFFER_SIZE);
+    }
+
+    public CsvWriter(Writer writer, CsvParser parser) {
+        this(writer, parser.getDelimiter(), parser.getQuotation(), BUFFER_SIZE);
+    }
+
+    public CsvWriter(OutputStream outputStream, Charset charset, CsvParser parser) {
+        this(new OutputStreamWriter(outputStream, charset), parser);
+    }
+
+    public CsvWriter(Writer writer) {
+        this(writer, CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, BUFFER_SIZE);
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    public char getQuotation() {
+        return quotation;
+    }
+
+    /**
+     * Writes one record. A {@code null} field is written as an empty one. A record made of a single empty field is
+     * written as an empty quoted field, since readers skip empty lines.
+     */
+    public void writeRow(CharSequence... fields) throws IOException {
+        if (1 == fields.length && (null == fields[0] || 0 == fields[0].length())) {
+            put(quotation);
+            put(quotation);
+        } else {
+            for (int i = 0; i < fields.length; ++i) {
+                if (0 < i) {
+                    put(delimiter);
+                }
+
+                writeField(fields[i]);
+            }
+        }
+
+        put(LINE_FEED);
+    }
+
+    public void writeRows(Iterable<? extends CharSequence[]> rows) throws IOException {
+        for (CharSequence[] row : rows) {
+            writeRow(row);
+        }
+    }
+
+    public void writeRows(CharSequence[][] rows) throws IOException {
+        for (CharSequence[] row : rows) {
+            writeRow(row);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeField(CharSequence field) throws IOException {
+        if (null == field) {
+            return;
+        }
+
+        int length = field.length();
+        int special = indexOfSpecial(field, length);
+
+        if (length == special) {
+            append(field, 0, length);
+
+            return;
+        }
+
+        put(quotation);
+        append(field, 0, special);
+
+        int from = special;
+        for (int i = special; i < length; ++i) {
+            if (quotation == field.charAt(i)) {
+                append(field, from, i + 1);
+                put(quotation);
+
+                from = i + 1;
+            }
+        }
+
+        append(field, from, length);
+        put(quotation);
+    }
+
+    /**
+     * Returns the index of the first character that forces quoting, or {@code length} when the field can be written
+     * as is.
+     */
+    private int indexOfSpecial(CharSequence field, int length) {
+        for (int i = 0; i < length; ++i) {
+            char c = field.charAt(i);
+
+            if (delimiter == c || quotation == c || LINE_FEED == c || CARRIAGE_RETURN == c) {
+                return i;
+            }
+        }
+
+        return length;
+    }
+
+    private void append(CharSequence field, int from, int to) throws IOException {
+        while (from < to) {
+            if (buffer.length == position) {
+                drain();
+            }
+
+            int count = Math.min(to - from, buffer.length - position);
+
+            if (field instanceof String) {
+                ((String) field).getChars(from, from + count, buffer, position);
+            } else {
+                for (int i = 0; i < count; ++i) {
+                    buffer[position + i] = field.charAt(from + i);
+                }
+            }
+
+            position += count;
+            from += count;
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (buffer.length == position) {
+            drain();
+        }
+
+        buffer[position++] = c;
+    }
+
+    private void drain() throws IOException {
+        if (0 < position) {
+            writer.write(buffer, 0, position);
+
+            position = 0;
+        }
+    }
+}
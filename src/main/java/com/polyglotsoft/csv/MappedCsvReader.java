@@ -0,0 +1,193 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads records from a UTF-8 (or ASCII) file by memory mapping it and scanning the raw bytes. Only field offsets are
+ * recorded while scanning; a field is decoded when {@link #getField(int)} asks for it. With an error policy that
+ * resynchronizes, a record longer than {@code lineLimit} chars is cut at its first line break, as {@link CsvReader}
+ * does.
+ */
+public class MappedCsvReader implements CsvRecordReader {
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final CsvTokenizer tokenizer;
+    private final CsvStringCache stringCache;
+    private final RecordScanner scanner;
+    private final CsvFieldIndex index = new CsvFieldIndex();
+    private final long end;
+    private final int windowSize;
+    private final CsvParser parser;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private int position;
+    private long recordOffset = -1;
+    private long row;
+
+    public MappedCsvReader(Path path, CsvParser parser, int windowSize) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), 0, -1, parser, windowSize, true);
+    }
+
+    public MappedCsvReader(Path path, CsvParser parser) throws IOException {
+        this(path, parser, WINDOW_SIZE);
+    }
+
+    MappedCsvReader(FileChannel channel, long start, long end, CsvParser parser, int windowSize, boolean closeChannel)
+            throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.tokenizer = parser.getTokenizer();
+        this.stringCache = parser.getStringCache();
+        this.scanner = new RecordScanner(parser.getDelimiter(), parser.getQuotation());
+        this.end = -1 == end ? channel.size() : end;
+        this.windowSize = windowSize;
+        this.parser = parser;
+        this.windowStart = start;
+    }
+
+    /**
+     * Moves to the next record, returning false at the end of the file.
+     */
+    public boolean next() throws IOException {
+        return readRecord(index);
+    }
+
+    @Override
+    public boolean readRecord(CsvFieldIndex index) throws IOException {
+        int size = windowSize;
+
+        while (true) {
+            if (position == windowLimit && !map(windowStart + position, size)) {
+                recordOffset = -1;
+
+                return false;
+            }
+
+            int start = position;
+            int recordEnd = scanner.findRecordEnd(window, start, windowLimit);
+            int cut = tokenizer.findCut(window, start, -1 == recordEnd ? windowLimit : recordEnd);
+            if (-1 != cut) {
+                scanner.reset();
+                position = cut + 1;
+
+                if (-1 != check(index, tokenizer.tokenize(window, start, cut, index), start, true)) {
+                    return true;
+                }
+
+                continue;
+            }
+
+            if (-1 == recordEnd) {
+                if (windowStart + windowLimit < end) {
+                    // the record crosses the window, so map again from its first byte
+                    scanner.reset();
+
+                    if (0 == start) {
+                        if (MAX_WINDOW_SIZE == size) {
+                            throw new IOException("Record at " + windowStart + " is larger than " + size + " bytes");
+                        }
+
+                        size = (int) Math.min((long) size << 1, MAX_WINDOW_SIZE);
+                    }
+
+                    map(windowStart + start, size);
+
+                    continue;
+                }
+
+                scanner.reset();
+                recordEnd = windowLimit;
+            }
+
+            position = recordEnd == windowLimit ? recordEnd : recordEnd + 1;
+
+            if (start < recordEnd && -1 != check(index, tokenizer.tokenize(window, start, recordEnd, index), start,
+                    false)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of non-empty records read so far, the row number of the next one. Readers of a range count from the
+     * start of their range.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    private int check(CsvFieldIndex index, int fields, int start, boolean cut) {
+        int checked = tokenizer.check(index, fields, row++, windowStart + start, cut);
+
+        if (-1 != checked) {
+            recordOffset = windowStart + start;
+        }
+
+        return checked;
+    }
+
+    /**
+     * Byte offset of the current record in the file.
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    public int getFieldCount() {
+        return index.size();
+    }
+
+    public String getField(int field) {
+        return null == stringCache ? index.getString(field) : stringCache.getString(index, field);
+    }
+
+    CsvParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public String[] readRecord() throws IOException {
+        if (!next()) {
+            return null;
+        }
+
+        return index.toArray(stringCache);
+    }
+
+    private boolean map(long offset, int size) throws IOException {
+        long length = Math.min(size, end - offset);
+        if (length <= 0) {
+            return false;
+        }
+
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowStart = offset;
+        windowLimit = (int) length;
+        position = 0;
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
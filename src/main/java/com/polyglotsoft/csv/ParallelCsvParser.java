@@ -0,0 +1,123 @@
+package com.polyglotsoft.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses one file on several cores. The file is cut into byte ranges starting on record boundaries (see
+ * {@link ChunkPlanner}) and every range is read by its own {@link MappedCsvReader} on the pool. The planner cannot
+ * know where a resynchronizing reader would cut a runaway quotation, so with a {@link CsvErrorPolicy#LENIENT} or
+ * {@link CsvErrorPolicy#SKIP} parser the file is read as a single range on the pool.
+ */
+public class ParallelCsvParser {
+    public static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private final CsvParser parser;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelCsvParser(CsvParser parser, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        this.parser = parser;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public ParallelCsvParser(CsvParser parser) {
+        this(parser, ForkJoinPool.commonPool(), CHUNK_SIZE);
+    }
+
+    /**
+     * Passes every record of the file to {@code consumer}. When {@code ordered} is true the records arrive in file
+     * order on the calling thread; otherwise they arrive from the pool threads as soon as they are parsed, so the
+     * consumer has to be thread safe.
+     */
+    public void parse(Path path, boolean ordered, Consumer<String[]> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = parser.getTokenizer().resyncs() ? new long[]{0, channel.size()}
+                    : ChunkPlanner.plan(channel, parser, chunkSize, pool);
+
+            if (ordered) {
+                parseOrdered(channel, boundaries, consumer);
+            } else {
+                parseUnordered(channel, boundaries, consumer);
+            }
+        }
+    }
+
+    public List<String[]> parse(Path path) throws IOException {
+        List<String[]> records = new ArrayList<>();
+
+        parse(path, true, records::add);
+
+        return records;
+    }
+
+    private void parseOrdered(FileChannel channel, long[] boundaries, Consumer<String[]> consumer) throws IOException {
+        // only a few ranges run ahead of the consumer, so parsed but undelivered records stay bounded
+        int window = Math.max(2, pool.getParallelism() << 1);
+        Deque<ForkJoinTask<List<String[]>>> pending = new ArrayDeque<>(window);
+        int next = 0;
+
+        while (next < boundaries.length - 1 || !pending.isEmpty()) {
+            while (pending.size() < window && next < boundaries.length - 1) {
+                long start = boundaries[next];
+                long end = boundaries[++next];
+
+                pending.add(pool.submit(() -> {
+                    List<String[]> records = new ArrayList<>();
+
+                    read(channel, start, end, records::add);
+
+                    return records;
+                }));
+            }
+
+            for (String[] record : ChunkPlanner.join(pending.poll())) {
+                consumer.accept(record);
+            }
+        }
+    }
+
+    private void parseUnordered(FileChannel channel, long[] boundaries, Consumer<String[]> consumer)
+            throws IOException {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(boundaries.length);
+
+        for (int i = 0; i < boundaries.length - 1; ++i) {
+            long start = boundaries[i];
+            long end = boundaries[i + 1];
+
+            tasks.add(pool.submit(() -> read(channel, start, end, consumer)));
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            ChunkPlanner.join(task);
+        }
+    }
+
+    private void read(FileChannel channel, long start, long end, Consumer<String[]> consumer) {
+        try (MappedCsvReader reader = new MappedCsvReader(channel, start, end, parser,
+                (int) Math.min(MappedCsvReader.WINDOW_SIZE, Math.max(1, end - start)), false)) {
+            String[] record;
+
+            while (null != (record = reader.readRecord())) {
+                consumer.accept(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
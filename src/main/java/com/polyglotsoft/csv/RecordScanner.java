@@ -0,0 +1,154 @@
+package com.polyglotsoft.csv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Finds record boundaries with the same quoting rules as {@link CsvParser#parseLine(String)}: a quotation only opens
+ * a field when it is preceded by whitespace alone, and line breaks inside an open quotation belong to the field.
+ */
+final class RecordScanner {
+    static final int RECORD_START = 0;
+    static final int FIELD_START = 1;
+    static final int OPEN_QUOTATION = 2;
+    static final int OPEN_QUOTATIONS = 3;
+    static final int QUOTED = 4;
+    static final int QUOTED_QUOTATION = 5;
+    static final int UNQUOTED = 6;
+    static final int STATES = 7;
+
+    static final int OTHER = 0;
+    static final int WHITESPACE = 1;
+    static final int DELIMITER = 2;
+    static final int QUOTATION = 3;
+    static final int NEWLINE = 4;
+    static final int CLASSES = 5;
+
+    static final int[] TRANSITIONS = {
+            // OTHER, WHITESPACE, DELIMITER, QUOTATION, NEWLINE
+            UNQUOTED, FIELD_START, FIELD_START, OPEN_QUOTATION, RECORD_START, // RECORD_START
+            UNQUOTED, FIELD_START, FIELD_START, OPEN_QUOTATION, RECORD_START, // FIELD_START
+            QUOTED, QUOTED, QUOTED, OPEN_QUOTATIONS, QUOTED, // OPEN_QUOTATION
+            UNQUOTED, UNQUOTED, FIELD_START, QUOTED, RECORD_START, // OPEN_QUOTATIONS
+            QUOTED, QUOTED, QUOTED, QUOTED_QUOTATION, QUOTED, // QUOTED
+            UNQUOTED, UNQUOTED, FIELD_START, QUOTED, RECORD_START, // QUOTED_QUOTATION
+            UNQUOTED, UNQUOTED, FIELD_START, UNQUOTED, RECORD_START // UNQUOTED
+    };
+
+    private final char delimiter;
+    private final char quotation;
+    private final byte[] classes = new byte[128];
+
+    private int state = RECORD_START;
+
+    RecordScanner(char delimiter, char quotation) {
+        this.delimiter = delimiter;
+        this.quotation = quotation;
+
+        for (int c = 0; c < classes.length; ++c) {
+            if (delimiter == c) {
+                classes[c] = DELIMITER;
+            } else if (quotation == c) {
+                classes[c] = QUOTATION;
+            } else if (CsvParser.CR == c || CsvParser.LF == c) {
+                classes[c] = NEWLINE;
+            } else if (Character.isWhitespace(c)) {
+                classes[c] = WHITESPACE;
+            }
+        }
+    }
+
+    int classOf(char c) {
+        if (c < classes.length) {
+            return classes[c];
+        }
+
+        if (delimiter == c) {
+            return DELIMITER;
+        }
+
+        if (quotation == c) {
+            return QUOTATION;
+        }
+
+        // whitespace is ASCII whitespace only, as for bytes
+        return OTHER;
+    }
+
+    int classOf(byte b) {
+        return 0 <= b ? classes[b] : OTHER;
+    }
+
+    int getState() {
+        return state;
+    }
+
+    void reset() {
+        state = RECORD_START;
+    }
+
+    /**
+     * Continues from a state returned by {@link #getState()}, for scanning that resumes where an earlier scanner
+     * stopped.
+     */
+    void restore(int state) {
+        if (state < 0 || STATES <= state) {
+            throw new IllegalArgumentException("Unknown scanner state: " + state);
+        }
+
+        this.state = state;
+    }
+
+    /**
+     * Returns the index of the line break ending the current record, or -1 when {@code to} is reached first; the
+     * scanner keeps its state so scanning can continue on the next buffer.
+     */
+    int findRecordEnd(char[] chars, int from, int to) {
+        int current = state;
+
+        for (int i = from; i < to; ++i) {
+            current = TRANSITIONS[current * CLASSES + classOf(chars[i])];
+
+            if (RECORD_START == current) {
+                state = current;
+
+                return i;
+            }
+        }
+
+        state = current;
+
+        return -1;
+    }
+
+    /**
+     * Same as {@link #findRecordEnd(char[], int, int)}. Inside unquoted and quoted fields only a few bytes can change
+     * the state, so those runs are skipped eight bytes at a time.
+     */
+    int findRecordEnd(ByteBuffer bytes, int from, int to) {
+        int current = state;
+
+        for (int i = from; i < to; ++i) {
+            if (UNQUOTED == current) {
+                i = Swar.indexOfAny(bytes, i, to, (byte) delimiter, (byte) CsvParser.LF, (byte) CsvParser.CR);
+            } else if (QUOTED == current) {
+                i = Swar.indexOf(bytes, i, to, (byte) quotation);
+            }
+
+            if (i == to) {
+                break;
+            }
+
+            current = TRANSITIONS[current * CLASSES + classOf(bytes.get(i))];
+
+            if (RECORD_START == current) {
+                state = current;
+
+                return i;
+            }
+        }
+
+        state = current;
+
+        return -1;
+    }
+}
@@ -0,0 +1,106 @@
+package com.polyglotsoft.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD within a register: tests eight bytes at a time by reading them as one long. The zero byte test used here is
+ * the exact variant, without carries between bytes, so it works for either byte order of the buffer.
+ */
+final class Swar {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private Swar() {
+    }
+
+    static long broadcast(int b) {
+        return (b & 0xFFL) * ONES;
+    }
+
+    /**
+     * Sets the high bit of every zero byte of {@code word} and clears all other bits.
+     */
+    static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    static int indexOf(ByteBuffer bytes, int from, int to, byte b) {
+        long pattern = broadcast(b);
+        boolean bigEndian = ByteOrder.BIG_ENDIAN == bytes.order();
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long found = zeroBytes(bytes.getLong(i) ^ pattern);
+
+            if (0 != found) {
+                return i + offset(found, bigEndian);
+            }
+        }
+
+        for (; i < to; ++i) {
+            if (b == bytes.get(i)) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    static int indexOfAny(ByteBuffer bytes, int from, int to, byte b1, byte b2) {
+        long pattern1 = broadcast(b1);
+        long pattern2 = broadcast(b2);
+        boolean bigEndian = ByteOrder.BIG_ENDIAN == bytes.order();
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+            long found = zeroBytes(word ^ pattern1) | zeroBytes(word ^ pattern2);
+
+            if (0 != found) {
+                return i + offset(found, bigEndian);
+            }
+        }
+
+        for (; i < to; ++i) {
+            byte b = bytes.get(i);
+
+            if (b1 == b || b2 == b) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    static int indexOfAny(ByteBuffer bytes, int from, int to, byte b1, byte b2, byte b3) {
+        long pattern1 = broadcast(b1);
+        long pattern2 = broadcast(b2);
+        long pattern3 = broadcast(b3);
+        boolean bigEndian = ByteOrder.BIG_ENDIAN == bytes.order();
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+            long found = zeroBytes(word ^ pattern1) | zeroBytes(word ^ pattern2) | zeroBytes(word ^ pattern3);
+
+            if (0 != found) {
+                return i + offset(found, bigEndian);
+            }
+        }
+
+        for (; i < to; ++i) {
+            byte b = bytes.get(i);
+
+            if (b1 == b || b2 == b || b3 == b) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    private static int offset(long found, boolean bigEndian) {
+        return (bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found)) >>> 3;
+    }
+}
@@ -0,0 +1,74 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvColumnBatchTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldFillColumnsInBatches() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "1,ignored,10000000000,1.5\n2,x, -3 ,\n3\n4,x,7,2e3\n5,x,8,-0.25"), csvParser);
+        CsvColumnBatch batch = new CsvColumnBatch(3).addIntColumn(0).addLongColumn(2).addDoubleColumn(3);
+
+        assertEquals(3, batch.fill(reader));
+        assertArrayEquals(new int[]{1, 2, 3}, batch.getInts(0));
+        assertArrayEquals(new long[]{10000000000L, -3, 0}, batch.getLongs(2));
+        assertArrayEquals(new double[]{1.5, 0, 0}, batch.getDoubles(3), 0);
+        assertFalse(batch.isNull(2, 1));
+        assertTrue(batch.isNull(3, 1));
+        assertTrue(batch.isNull(2, 2));
+
+        assertEquals(2, batch.fill(reader));
+        assertEquals(4, batch.getInts(0)[0]);
+        assertEquals(5, batch.getInts(0)[1]);
+        assertEquals(2000.0, batch.getDoubles(3)[0], 0);
+        assertEquals(-0.25, batch.getDoubles(3)[1], 0);
+        assertFalse(batch.isNull(2, 0));
+
+        assertEquals(0, batch.fill(reader));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void shouldEncodeStringsPerBatch() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,x\nb, \n\"a\",y\nc\nc,z"), csvParser);
+        CsvColumnBatch batch = new CsvColumnBatch(4).addStringColumn(0).addStringColumn(1);
+
+        assertEquals(4, batch.fill(reader));
+        assertArrayEquals(new int[]{0, 1, 0, 2}, batch.getCodes(0));
+        assertArrayEquals(new String[]{"a", "b", "c"}, batch.getDictionary(0));
+        assertArrayEquals(new String[]{"x", " ", "y"}, batch.getDictionary(1));
+        assertEquals(" ", batch.getString(1, 1));
+        assertTrue(batch.isNull(1, 3));
+        assertNull(batch.getString(1, 3));
+
+        assertEquals(1, batch.fill(reader));
+        assertArrayEquals(new String[]{"c"}, batch.getDictionary(0));
+        assertEquals("z", batch.getString(1, 0));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectInvalidNumbers() throws IOException {
+        new CsvColumnBatch(1).addIntColumn(0).fill(new CsvReader(new StringReader("12a"), csvParser));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWrongType() {
+        new CsvColumnBatch(1).addIntColumn(0).getLongs(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateColumn() {
+        new CsvColumnBatch(1).addIntColumn(0).addLongColumn(0);
+    }
+}
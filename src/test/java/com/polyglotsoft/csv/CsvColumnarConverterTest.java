@@ -0,0 +1,153 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvColumnarConverterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldRoundTripRowGroups() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 250; ++i) {
+            content.append(i).append(',').append(i % 7 == 3 ? "" : String.valueOf(i * 10_000_000_000L)).append(',')
+                    .append(i / 4.0).append(0 == i % 11 ? "" : ",\"city " + (i % 5) + ", Köln\"").append('\n');
+        }
+
+        Path input = folder.newFile("data.csv").toPath();
+        Path output = folder.getRoot().toPath().resolve("data.col");
+        Files.write(input, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        long rows = new CsvColumnarConverter(64).addIntColumn(0).addLongColumn(1).addDoubleColumn(2)
+                .addStringColumn(3).convert(input, csvParser, output);
+
+        assertEquals(250, rows);
+
+        try (CsvColumnarReader reader = new CsvColumnarReader(output)) {
+            assertEquals(250, reader.getRowCount());
+            assertEquals(4, reader.getRowGroupCount());
+            assertArrayEquals(new int[]{0, 1, 2, 3}, reader.getColumns());
+
+            int row = 0;
+            for (int g = 0; g < reader.getRowGroupCount(); ++g) {
+                CsvRowGroup group = reader.readRowGroup(g);
+                IntBuffer ints = group.getInts(0);
+                LongBuffer longs = group.getLongs(1);
+                DoubleBuffer doubles = group.getDoubles(2);
+
+                assertEquals(3 == g ? 58 : 64, group.size());
+                assertEquals(64L * g, group.getMinLong(0));
+                assertEquals(64L * g + group.size() - 1, group.getMaxLong(0));
+                assertEquals(16.0 * g, group.getMinDouble(2), 0);
+                assertEquals("city 0, Köln", group.getMinString(3));
+                assertEquals("city 4, Köln", group.getMaxString(3));
+                assertEquals(5, group.getDictionary(3).length);
+
+                for (int i = 0; i < group.size(); ++i, ++row) {
+                    assertEquals(row, ints.get(i));
+                    assertEquals(row % 7 == 3, group.isNull(1, i));
+                    assertEquals(row % 7 == 3 ? 0 : row * 10_000_000_000L, longs.get(i));
+                    assertEquals(row / 4.0, doubles.get(i), 0);
+                    assertEquals(0 == row % 11 ? null : "city " + (row % 5) + ", Köln", group.getString(3, i));
+                }
+            }
+
+            assertEquals(250, row);
+        }
+    }
+
+    @Test
+    public void shouldWriteEmptyStatisticsForNullColumns() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("nulls.col");
+
+        new CsvColumnarConverter(8).addIntColumn(1).addDoubleColumn(2).addStringColumn(3)
+                .convert(new CsvReader(new StringReader("a\nb\n"), csvParser), output);
+
+        try (CsvColumnarReader reader = new CsvColumnarReader(output)) {
+            CsvRowGroup group = reader.readRowGroup(0);
+
+            assertEquals(2, group.size());
+            assertEquals(2, group.getNullCount(1));
+            assertEquals(Long.MAX_VALUE, group.getMinLong(1));
+            assertEquals(Double.NEGATIVE_INFINITY, group.getMaxDouble(2), 0);
+            assertNull(group.getMinString(3));
+            assertEquals(0, group.getDictionary(3).length);
+            assertTrue(group.isNull(3, 1));
+        }
+    }
+
+    @Test
+    public void shouldWriteMissingProjectedFieldsAsNull() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("projected.col");
+        CsvParser projected = csvParser.withProjection(0, 2, 3);
+
+        new CsvColumnarConverter().addIntColumn(0).addStringColumn(1).addDoubleColumn(2)
+                .convert(new CsvReader(new StringReader("1,a,x,1.5\n2\n3,b,y\n"), projected), output);
+
+        try (CsvColumnarReader reader = new CsvColumnarReader(output)) {
+            CsvRowGroup group = reader.readRowGroup(0);
+
+            assertEquals(3, group.size());
+            assertEquals("x", group.getString(1, 0));
+            assertNull(group.getString(1, 1));
+            assertEquals("y", group.getString(1, 2));
+            assertEquals(1, group.getNullCount(1));
+            assertEquals(2, group.getDictionary(1).length);
+            assertEquals(2, group.getNullCount(2));
+            assertEquals(1.5, group.getMaxDouble(2), 0);
+        }
+    }
+
+    @Test
+    public void shouldWriteEmptyFile() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("empty.col");
+
+        assertEquals(0, new CsvColumnarConverter().addIntColumn(0)
+                .convert(new CsvReader(new StringReader(""), csvParser), output));
+
+        try (CsvColumnarReader reader = new CsvColumnarReader(output)) {
+            assertEquals(0, reader.getRowCount());
+            assertEquals(0, reader.getRowGroupCount());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectOtherFiles() throws IOException {
+        Path path = folder.newFile("data.csv").toPath();
+        Files.write(path, "a,b,c\n1,2,3\n4,5,6\n7,8,9\n".getBytes(StandardCharsets.UTF_8));
+
+        new CsvColumnarReader(path).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWrongType() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("type.col");
+
+        new CsvColumnarConverter().addIntColumn(0).convert(new CsvReader(new StringReader("1"), csvParser), output);
+
+        try (CsvColumnarReader reader = new CsvColumnarReader(output)) {
+            assertFalse(reader.readRowGroup(0).isNull(0, 0));
+
+            reader.readRowGroup(0).getLongs(0);
+        }
+    }
+}
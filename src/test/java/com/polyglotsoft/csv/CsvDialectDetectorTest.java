@@ -0,0 +1,117 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CsvDialectDetectorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvDialectDetector detector = new CsvDialectDetector();
+
+    @Test
+    public void shouldDetectEveryDelimiter() throws IOException {
+        assertDialect(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, "a,b;c,d\n1,\"2;3\",4\n5,6,7\n");
+        assertDialect(CsvParser.SEMICOLON, CsvParser.DOUBLE_QUOTES, "a;b,c;d\n1;\"2,3\";4\n5;6;7\n");
+        assertDialect(CsvParser.TAB, CsvParser.DOUBLE_QUOTES, "a\tb,c\td\n1\t2\t3\n");
+        assertDialect(CsvParser.PIPE, CsvParser.DOUBLE_QUOTES, "a|b|c\r\n1|2,5|3\r\n");
+    }
+
+    @Test
+    public void shouldDetectQuotation() throws IOException {
+        assertDialect(CsvParser.SEMICOLON, CsvParser.SINGLE_QUOTES, "'a;b';c\n'd\ne';f\ng;h\n");
+        assertDialect(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, "name,remark\nann,it's fine\nbob,\"a, b\"\n"
+                + "cy,that's all\ndan,ok\n");
+    }
+
+    @Test
+    public void shouldFallBackToCommaAndDoubleQuotes() throws IOException {
+        assertDialect(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, "");
+        assertDialect(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, "single column\nonly\n");
+    }
+
+    @Test
+    public void shouldReplaySample() throws IOException {
+        byte[] content = "a;b\n1;2\n3;4\n".getBytes(StandardCharsets.UTF_8);
+        InputStream in = new ByteArrayInputStream(content);
+
+        CsvDetection detection = new CsvDialectDetector(5, 100, 10, 0).detect(in);
+
+        assertArrayEquals("a;b\n1;".getBytes(StandardCharsets.UTF_8), detection.getSample());
+        assertEquals(CsvParser.SEMICOLON, detection.getParser().getDelimiter());
+        assertArrayEquals(content, readAll(detection.replay(in)));
+    }
+
+    @Test
+    public void shouldCacheByPathUntilFileChanges() throws IOException {
+        CsvDialectDetector cached = new CsvDialectDetector(CsvDialectDetector.SAMPLE_SIZE, 100, 10, 4);
+        Path path = folder.newFile().toPath();
+        Files.write(path, "a;b\n1;2\n".getBytes(StandardCharsets.UTF_8));
+
+        CsvDetection first = cached.detect(path);
+        CsvDetection second = cached.detect(path);
+
+        assertEquals(8, first.getSample().length);
+        assertSame(first.getParser(), second.getParser());
+        assertEquals(0, second.getSample().length);
+
+        Files.write(path, "a,b,c\n1,2,3\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(CsvParser.COMMA, cached.detect(path).getParser().getDelimiter());
+    }
+
+    @Test
+    public void shouldCacheStreamsByFirstLine() throws IOException {
+        CsvDialectDetector cached = new CsvDialectDetector(CsvDialectDetector.SAMPLE_SIZE, 100, 10, 4);
+
+        CsvParser first = cached.detect(stream("id|name\n1|a\n")).getParser();
+
+        assertSame(first, cached.detect(stream("id|name\n2|b\n3|c\n")).getParser());
+        assertEquals(CsvParser.PIPE, first.getDelimiter());
+        assertEquals(CsvParser.TAB, cached.detect(stream("id\tname\n1\ta\n")).getParser().getDelimiter());
+    }
+
+    @Test
+    public void shouldFingerprintFirstNonEmptyLine() throws IOException {
+        CsvDialectDetector cached = new CsvDialectDetector(CsvDialectDetector.SAMPLE_SIZE, 100, 10, 4);
+
+        assertEquals(CsvParser.SEMICOLON, cached.detect(stream("\nid;name\n1;a\n")).getParser().getDelimiter());
+        assertEquals(CsvParser.TAB, cached.detect(stream("\r\n\nid\tname\n1\ta\n")).getParser().getDelimiter());
+        assertEquals(CsvParser.SEMICOLON, cached.detect(stream("\r\nid;name\n2;b\n")).getParser().getDelimiter());
+    }
+
+    private void assertDialect(char delimiter, char quotation, String content) throws IOException {
+        CsvParser parser = detector.detect(stream(content)).getParser();
+
+        assertEquals(content, delimiter, parser.getDelimiter());
+        assertEquals(content, quotation, parser.getQuotation());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+
+        for (int read; -1 != (read = in.read(buffer)); ) {
+            out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+    }
+}
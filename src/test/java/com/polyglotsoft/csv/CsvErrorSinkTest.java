@@ -0,0 +1,28 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvErrorSinkTest {
+    @Test
+    public void shouldKeepFirstErrorsAndCountAll() {
+        CsvErrorSink sink = new CsvErrorSink(2);
+
+        for (int row = 0; row < 5; ++row) {
+            sink.add(new CsvError(row, row * 10L, CsvError.Reason.LINE_TOO_LONG));
+        }
+
+        assertEquals(2, sink.getErrors().size());
+        assertEquals(1, sink.getErrors().get(1).getRow());
+        assertEquals(5, sink.getErrorCount());
+        assertTrue(sink.isOverflowed());
+
+        sink.clear();
+
+        assertEquals(0, sink.getErrorCount());
+        assertFalse(sink.isOverflowed());
+    }
+}
@@ -0,0 +1,251 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CsvFieldIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+    private CsvFieldIndex index = new CsvFieldIndex(1);
+
+    @Test
+    public void shouldParseNonSense() {
+        assertEquals(0, csvParser.parseLine((String) null, index));
+        assertEquals(0, csvParser.parseLine("", index));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void shouldPointIntoOriginalBuffer() {
+        char[] chars = "xx1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",4900.00yy".toCharArray();
+
+        assertEquals(5, csvParser.parseLine(chars, 2, chars.length - 4, index));
+
+        assertEquals(2, index.getStart(0));
+        assertEquals(6, index.getEnd(0));
+        assertFalse(index.isEscaped(0));
+        assertEquals(14, index.getStart(2));
+        assertEquals(42, index.getEnd(2));
+        assertTrue(index.isEscaped(2));
+        assertEquals(index.getStart(3), index.getEnd(3));
+        assertArrayEquals(new String[]{"1999", "Chevy", "Venture \"Extended Edition\"", "", "4900.00"},
+                index.toArray());
+    }
+
+    @Test
+    public void shouldReuseIndex() {
+        assertEquals(3, csvParser.parseLine("a,b,c", index));
+        assertEquals(1, csvParser.parseLine("\"hello,\"\"\"\",world\"", index));
+        assertEquals("hello,\"\",world", index.getString(0));
+        assertEquals(2, csvParser.parseLine(" \"aaa\"  ,   \"bbb\"   ", index));
+        assertArrayEquals(new String[]{"aaa", "bbb"}, index.toArray());
+    }
+
+    @Test
+    public void shouldApplyLimits() {
+        CsvParser newParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 9, 1);
+
+        assertEquals(1, newParser.parseLine("1234567890", index));
+        assertEquals("123456789", index.getString(0));
+        assertEquals(1, newParser.parseLine("123, 456789", index));
+        assertEquals("123", index.getString(0));
+        assertEquals(1, newParser.parseLine("\"          \"", index));
+        assertEquals("\"        ", index.getString(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectMissingField() {
+        csvParser.parseLine("a,b", index);
+
+        index.getString(2);
+    }
+
+    @Test
+    public void shouldCompareAndHashWithoutStrings() {
+        csvParser.parseLine("plain,\"4\"\"four\",addr\"\"ess,\"\",ü𝄞", index);
+
+        for (int i = 0; i < index.size(); ++i) {
+            String value = index.getString(i);
+
+            assertTrue(value, index.contentEquals(i, value));
+            assertFalse(value, index.contentEquals(i, value + "x"));
+            assertEquals(value, value.hashCode(), index.getHashCode(i));
+        }
+
+        assertTrue(index.contentEquals(1, "4\"four"));
+        assertFalse(index.contentEquals(1, "4\"\"four"));
+        assertTrue(index.startsWith(1, "4\"f"));
+        assertTrue(index.startsWith(1, ""));
+        assertFalse(index.startsWith(1, "4\"\""));
+        assertFalse(index.startsWith(1, "4\"fourx"));
+    }
+
+    @Test
+    public void shouldCompareAndHashBytesWithoutStrings() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, "plain,\"4\"\"four\",addr\"\"ess,\"\",ü𝄞€\n".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, csvParser)) {
+            assertTrue(reader.readRecord(index));
+        }
+
+        assertArrayEquals(new String[]{"plain", "4\"four", "addr\"ess", "", "ü𝄞€"}, index.toArray());
+
+        for (int i = 0; i < index.size(); ++i) {
+            String value = index.getString(i);
+
+            assertTrue(value, index.contentEquals(i, value));
+            assertFalse(value, index.contentEquals(i, "x" + value));
+            assertEquals(value, value.hashCode(), index.getHashCode(i));
+        }
+    }
+
+    @Test
+    public void shouldDecodeMalformedBytesLikeStrings() {
+        Random random = new Random(42);
+        byte[][] samples = {
+                {(byte) 0xC0, (byte) 0xAF}, {(byte) 0xE0, (byte) 0x80, (byte) 0x80}, {(byte) 0xED, (byte) 0xA0,
+                (byte) 0x80}, {(byte) 0xF0, (byte) 0x8F, (byte) 0xBF}, {(byte) 0xF4, (byte) 0x90}, {(byte) 0xE2,
+                (byte) 0x82}, {(byte) 0xF0, (byte) 0x9F, (byte) 0x98}, {(byte) 0xE2, '"', '"', (byte) 0x82}
+        };
+
+        for (int n = 0; n < 20_000; ++n) {
+            byte[] field = n < samples.length ? samples[n] : new byte[1 + random.nextInt(8)];
+            if (samples.length <= n) {
+                for (int i = 0; i < field.length; ++i) {
+                    field[i] = 0 == random.nextInt(6) ? (byte) 'a' : (byte) (0x80 + random.nextInt(0x80));
+                }
+            }
+
+            byte[] line = new byte[field.length + 2];
+            line[0] = '"';
+            System.arraycopy(field, 0, line, 1, field.length);
+            line[line.length - 1] = '"';
+
+            assertEquals(1, csvParser.parseBuffer(ByteBuffer.wrap(line), index));
+
+            String value = index.getString(0);
+            String hex = Arrays.toString(field);
+
+            assertEquals(hex, value.hashCode(), index.getHashCode(0));
+            assertTrue(hex, index.contentEquals(0, value));
+            assertFalse(hex, index.contentEquals(0, value + "\uFFFD"));
+        }
+    }
+
+    @Test
+    public void shouldReadRecordsIntoIndex() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\nc\"\n\"d\"\"\",e"), csvParser, 4);
+
+        assertTrue(reader.readRecord(index));
+        assertArrayEquals(new String[]{"a", "b\nc"}, index.toArray());
+        assertTrue(reader.readRecord(index));
+        assertArrayEquals(new String[]{"d\"", "e"}, index.toArray());
+        assertFalse(reader.readRecord(index));
+    }
+
+    @Test
+    public void shouldParseIntegers() {
+        csvParser.parseLine("0, 23234 ,-2147483648,2147483647,-9223372036854775808,+7", index);
+
+        assertEquals(0, index.getInt(0));
+        assertEquals(23234, index.getInt(1));
+        assertEquals(Integer.MIN_VALUE, index.getInt(2));
+        assertEquals(Integer.MAX_VALUE, index.getInt(3));
+        assertEquals(Long.MIN_VALUE, index.getLong(4));
+        assertEquals(7, index.getLong(5));
+    }
+
+    @Test
+    public void shouldRejectInvalidIntegers() {
+        csvParser.parseLine("2147483648,9223372036854775808,-,1 2,,\"1\"\"\",abc", index);
+
+        for (int i = 0; i < index.size(); ++i) {
+            try {
+                index.getInt(i);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            fail(index.getString(i));
+        }
+    }
+
+    @Test
+    public void shouldParseDoubles() {
+        String[] values = {"0", "-0", "1.5", ".7", "8.", " 343456.45 ", "0.001", "1e10", "-2.5E-3", "1e-400", "NaN",
+                "-Infinity", "123456789012345678901234567890", "0.1234567890123456789", "4.9e-324", "1.7976931348623157e308"};
+
+        csvParser = new CsvParser(CsvParser.SEMICOLON, CsvParser.DOUBLE_QUOTES, 1000, 100);
+        csvParser.parseLine(String.join(";", values), index);
+
+        for (int i = 0; i < values.length; ++i) {
+            assertEquals(values[i], Double.parseDouble(values[i]), index.getDouble(i), 0);
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidDoubles() {
+        csvParser.parseLine("9.1.2,e5,1e,abc,", index);
+
+        for (int i = 0; i < index.size(); ++i) {
+            try {
+                index.getDouble(i);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            fail(index.getString(i));
+        }
+    }
+
+    @Test
+    public void shouldParseNumbersFromBytes() throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, "42,-7000000000, 2.5 ,ä\n".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, csvParser)) {
+            assertTrue(reader.readRecord(index));
+        }
+
+        assertEquals(42, index.getInt(0));
+        assertEquals(-7000000000L, index.getLong(1));
+        assertEquals(2.5, index.getDouble(2), 0);
+        assertFalse(index.isBlank(3));
+
+        try {
+            index.getLong(3);
+
+            fail();
+        } catch (NumberFormatException e) {
+            assertEquals("For input string: \"ä\"", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldGrowOwnedCharsUpToLimit() {
+        assertEquals(256, index.ownedChars(10, 1000).length);
+        assertEquals(512, index.ownedChars(300, 1000).length);
+        assertEquals(1000, index.ownedChars(513, 1000).length);
+        assertEquals(1000, index.ownedChars(1000, 1000).length);
+        assertEquals(1001, index.ownedChars(1001, 1001).length);
+    }
+}
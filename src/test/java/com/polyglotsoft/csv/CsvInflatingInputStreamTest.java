@@ -0,0 +1,196 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CsvInflatingInputStreamTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldInflateGzipMembersInOrder() throws IOException {
+        byte[] content = content(500);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+
+        for (int start = 0; start < content.length; start += 4000) {
+            try (GZIPOutputStream member = new GZIPOutputStream(new NonClosingStream(gzip))) {
+                member.write(content, start, Math.min(4000, content.length - start));
+            }
+        }
+
+        assertArrayEquals(content, readAll(CsvInflatingInputStream.gzip(new ByteArrayInputStream(gzip.toByteArray()),
+                2, 1000, 2)));
+    }
+
+    @Test
+    public void shouldInflateBgzfMembersInParallel() throws IOException {
+        byte[] content = content(2000);
+
+        for (int bufferSize : new int[]{300, 1000, CsvInflatingInputStream.BUFFER_SIZE}) {
+            assertArrayEquals(content, readAll(CsvInflatingInputStream.gzip(new ByteArrayInputStream(bgzf(content,
+                    300)), 3, bufferSize, 2)));
+        }
+    }
+
+    @Test
+    public void shouldInflateZlibStream() throws IOException {
+        byte[] content = content(300);
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+
+        try (DeflaterOutputStream output = new DeflaterOutputStream(zlib)) {
+            output.write(content);
+        }
+
+        assertArrayEquals(content, readAll(CsvInflatingInputStream.deflate(new ByteArrayInputStream(
+                zlib.toByteArray()), 700, 3)));
+    }
+
+    @Test(expected = ZipException.class)
+    public void shouldRejectCorruptBgzfMember() throws IOException {
+        byte[] bgzf = bgzf(content(100), 500);
+        bgzf[bgzf.length - 40] ^= 1;
+
+        readAll(CsvInflatingInputStream.gzip(new ByteArrayInputStream(bgzf), 2, 1000, 2));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldPassUncheckedErrorsToReader() throws IOException {
+        byte[] bgzf = bgzf(content(2000), 300);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+            output.write(content(2000));
+        }
+
+        for (byte[] compressed : new byte[][]{bgzf, gzip.toByteArray()}) {
+            InputStream failing = new ByteArrayInputStream(compressed) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    if (compressed.length / 2 < pos) {
+                        throw new IllegalStateException("broken");
+                    }
+
+                    return super.read(b, off, Math.min(len, 100));
+                }
+            };
+
+            try {
+                readAll(CsvInflatingInputStream.gzip(failing, 2, 1000, 2));
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("broken", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void shouldFeedPipelineFromGzipFile() throws IOException, InterruptedException {
+        Path path = folder.newFile("data.csv.gz").toPath();
+        Files.write(path, bgzf(content(1000), 1000));
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvBatches batches = new CsvPipeline(new CsvParser(), 64, 4, 2).openGzip(path)) {
+            for (List<String[]> batch; null != (batch = batches.take()); ) {
+                records.addAll(batch);
+            }
+        }
+
+        assertEquals(1000, records.size());
+        assertArrayEquals(new String[]{"999", "Köln, \"Rhein\"", "x"}, records.get(999));
+    }
+
+    private static byte[] content(int rows) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < rows; ++i) {
+            content.append(i).append(",\"Köln, \"\"Rhein\"\"\",x\n");
+        }
+
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[77];
+
+        try (InputStream input = in) {
+            for (int read; -1 != (read = input.read(buffer)); ) {
+                output.write(buffer, 0, read);
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Writes {@code content} as BGZF members of {@code blockSize} inflated bytes each, followed by the empty member
+     * that bgzip writes at the end.
+     */
+    private static byte[] bgzf(byte[] content, int blockSize) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        for (int start = 0; start < content.length; start += blockSize) {
+            writeMember(output, content, start, Math.min(blockSize, content.length - start));
+        }
+
+        writeMember(output, content, 0, 0);
+
+        return output.toByteArray();
+    }
+
+    private static void writeMember(ByteArrayOutputStream output, byte[] content, int start, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] deflated = new byte[length + 64];
+        CRC32 crc = new CRC32();
+
+        deflater.setInput(content, start, length);
+        deflater.finish();
+        int size = deflater.deflate(deflated);
+        deflater.end();
+        crc.update(content, start, length);
+
+        int memberSize = 18 + size + 8;
+        output.write(new byte[]{0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+                (byte) (memberSize - 1), (byte) ((memberSize - 1) >>> 8)}, 0, 18);
+        output.write(deflated, 0, size);
+        writeInt(output, (int) crc.getValue());
+        writeInt(output, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream output, int value) {
+        for (int i = 0; i < Integer.BYTES; ++i) {
+            output.write(value >>> (8 * i));
+        }
+    }
+
+    private static final class NonClosingStream extends FilterOutputStream {
+        NonClosingStream(ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
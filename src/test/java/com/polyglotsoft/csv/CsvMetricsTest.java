@@ -0,0 +1,107 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvMetricsTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 9, 2);
+
+    @Test
+    public void shouldFlagLimitsAndUnclosedQuotations() {
+        CsvFieldIndex index = new CsvFieldIndex();
+
+        csvParser.parseLine("a,b", index);
+        assertFalse(index.isLineTruncated() || index.isColumnTruncated() || index.hasUnclosedQuotation());
+
+        csvParser.parseLine("1234567890", index);
+        assertTrue(index.isLineTruncated());
+
+        csvParser.parseLine("a,b,", index);
+        assertTrue(index.isColumnTruncated());
+
+        csvParser.parseLine("a,\"b", index);
+        assertTrue(index.hasUnclosedQuotation());
+
+        byte[] bytes = "äöüäöüäöüä".getBytes(StandardCharsets.UTF_8);
+        csvParser.parseLine(bytes, 0, bytes.length, index);
+        assertTrue(index.isLineTruncated());
+
+        csvParser.withProjection(0).parseLine("a,b,c", index);
+        assertFalse(index.isColumnTruncated());
+    }
+
+    @Test
+    public void shouldCountParsedLines() {
+        CsvMetrics metrics = new CsvMetrics();
+        CsvParser parser = csvParser.withListener(metrics);
+
+        assertArrayEquals(new String[]{"a", "b"}, parser.parseLine("a,b"));
+        assertArrayEquals(new String[]{"1", "2"}, parser.parseLine("1,2,3"));
+        assertArrayEquals(new String[]{"123456789"}, parser.parseLine("1234567890"));
+        assertArrayEquals(new String[]{"\"x"}, parser.parseLine("\"x"));
+        parser.withFilter(new CsvRowFilter().equalTo(0, "y")).parseLine("x,y");
+
+        assertEquals(4, metrics.getRecords());
+        assertEquals(1, metrics.getFilteredRecords());
+        assertEquals(3 + 5 + 10 + 2 + 3, metrics.getLength());
+        assertEquals(6, metrics.getFields());
+        assertEquals(1, metrics.getTruncatedLines());
+        assertEquals(1, metrics.getTruncatedColumns());
+        assertEquals(1, metrics.getUnclosedQuotations());
+
+        long total = 0;
+        for (long count : metrics.getLatencyHistogram()) {
+            total += count;
+        }
+
+        assertEquals(5, total);
+        assertTrue(0 < metrics.getLatencyPercentile(50));
+        assertTrue(metrics.getLatencyPercentile(50) <= metrics.getLatencyPercentile(100));
+
+        metrics.reset();
+        assertEquals(0, metrics.getRecords());
+        assertEquals(0, metrics.getLatencyPercentile(100));
+    }
+
+    @Test
+    public void shouldCountLinesOfReaders() throws IOException {
+        CsvMetrics metrics = new CsvMetrics();
+        CsvReader reader = new CsvReader(new StringReader("a,b\n12345678901234\nc,d,e\n"), csvParser.withListener(metrics),
+                4);
+
+        assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+        assertArrayEquals(new String[]{"123456789"}, reader.readRecord());
+        assertArrayEquals(new String[]{"c", "d"}, reader.readRecord());
+
+        assertEquals(3, metrics.getRecords());
+        assertEquals(1, metrics.getTruncatedLines());
+        assertEquals(1, metrics.getTruncatedColumns());
+    }
+
+    @Test
+    public void shouldPublishOverJmx() throws JMException {
+        CsvMetrics metrics = new CsvMetrics();
+        ObjectName name = metrics.register("test");
+
+        try {
+            csvParser.withListener(metrics).parseLine("a,b");
+
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Records"));
+        } finally {
+            metrics.unregister("test");
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,147 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CsvParserFastPathTest {
+    private static final String[] LINES = {
+            "\"\"", " ", "\" \"", "abc", " abc ", "\"abc\"", " \" abc\"  ", "\"", "   \" b\"\"bb\"   ",
+            "\"aaa\"", "\"a,aa\"", ",", "aaa,bbb", "aaa , \" bbb\" , ccc ", "  aaa   ,   \" b\"\"bb\"   ",
+            "\"aaa\",\"bbb\"", "\"aaa\", \"bbb\"", " \"aaa\"  ,   \"bbb\"   ", "\"4\"\"four\"", "\"\"a\"\"",
+            "addr\"\"ess\"\"8@domain.com", "\"hello,\"\"\"\",world\"", "\"Quoted test with \"\"inner\"\" quotes\"",
+            "Unquoted test, \"Quoted test\", 23234, One Two Three, \"343456.45\"",
+            "Unquoted test 2, \"Quoted test with \"\"inner\"\" quotes\", 23234, One Two Three, \"34312.7\"",
+            "Unquoted test 3, \"Quoted test 3\", 23234, One Two Three, \"343486.12\"", "one  , 2 , three, 4",
+            "1,\"2,two\",\"3\nthree\",\"4\"\"four\"", "1\",2\"", "Year,Make,Model,Description,Price",
+            "1997,Ford,E350,\"ac, abs, moon\",3000.00",
+            "1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",4900.00",
+            "1999,Chevy,\"Venture \"\"Extended Edition, Very Large\"\"\",,5000.00",
+            "1996,Jeep,Grand Cherokee,\"MUST SELL!\r\nair, moon roof, loaded\",4799.00",
+            "\"weird\"\"\"\"quotes \",true,false,123,45.6", ".7,8.,9.1.2,null,undefined",
+            "Null, \"ok whitespace outside quotes\" ,trailing unquoted  ,   both   ,   leading",
+            "123456789", "1234567890", "123, 456789", "          123456789", ",,", "\"          \"",
+            "        \"  \"", "       \",", "\",", "\"\"\"a\"\"\"", "\"\"\"\"\"a\"\"\"\"\"",
+            "a,,b,,,c,", "a,b,c,d,e,f,g,h,i,j,k,l", "long unquoted field without any delimiter at all"
+    };
+
+    private final CsvParser[] parsers = {
+            new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10),
+            new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 9, 1),
+            new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 5, 3)
+    };
+
+    @Test
+    public void shouldSplitUnquotedLinesLikeFullParse() {
+        CsvFieldIndex index = new CsvFieldIndex();
+
+        for (CsvParser parser : parsers) {
+            for (String line : LINES) {
+                parser.parseLine(line, index);
+
+                assertArrayEquals(line, index.toArray(), parser.parseLine(line));
+            }
+        }
+    }
+
+    @Test
+    public void shouldTokenizeBytesLikeChars() {
+        CsvFieldIndex expected = new CsvFieldIndex();
+        CsvFieldIndex actual = new CsvFieldIndex();
+
+        for (CsvParser parser : parsers) {
+            for (String line : LINES) {
+                char[] chars = line.toCharArray();
+                parser.getTokenizer().tokenize(chars, 0, chars.length, expected);
+
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                for (int offset = 0; offset < Long.BYTES; ++offset) {
+                    for (ByteBuffer buffer : buffers(bytes, offset)) {
+                        parser.getTokenizer().tokenize(buffer, offset, offset + bytes.length, actual);
+
+                        assertArrayEquals(line, expected.toArray(), actual.toArray());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindRecordEndsInBytesLikeInChars() {
+        String content = String.join("\n", LINES) + "\n";
+        char[] chars = content.toCharArray();
+        ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII));
+        RecordScanner charScanner = new RecordScanner(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES);
+        RecordScanner byteScanner = new RecordScanner(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES);
+
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            bytes.order(order);
+
+            int from = 0;
+            while (from < chars.length) {
+                int expected = charScanner.findRecordEnd(chars, from, chars.length);
+
+                assertEquals(expected, byteScanner.findRecordEnd(bytes, from, chars.length));
+                assertEquals(charScanner.getState(), byteScanner.getState());
+
+                from = -1 == expected ? chars.length : expected + 1;
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindBytesLikeLinearSearch() {
+        Random random = new Random(8);
+        byte[] alphabet = {'a', ',', '"', '\n', '\r', (byte) 0x80, (byte) 0xFF, 0};
+
+        for (int round = 0; round < 1000; ++round) {
+            byte[] bytes = new byte[random.nextInt(40)];
+
+            for (int i = 0; i < bytes.length; ++i) {
+                bytes[i] = 0 == random.nextInt(6) ? alphabet[random.nextInt(alphabet.length)] : (byte) 'a';
+            }
+
+            byte b1 = alphabet[1 + random.nextInt(alphabet.length - 1)];
+            byte b2 = alphabet[1 + random.nextInt(alphabet.length - 1)];
+            byte b3 = alphabet[1 + random.nextInt(alphabet.length - 1)];
+            int from = random.nextInt(bytes.length + 1);
+
+            for (ByteBuffer buffer : buffers(bytes, 0)) {
+                assertEquals(naiveIndexOf(bytes, from, b1, b1, b1), Swar.indexOf(buffer, from, bytes.length, b1));
+                assertEquals(naiveIndexOf(bytes, from, b1, b2, b2),
+                        Swar.indexOfAny(buffer, from, bytes.length, b1, b2));
+                assertEquals(naiveIndexOf(bytes, from, b1, b2, b3),
+                        Swar.indexOfAny(buffer, from, bytes.length, b1, b2, b3));
+            }
+        }
+    }
+
+    private static ByteBuffer[] buffers(byte[] bytes, int offset) {
+        ByteBuffer heap = ByteBuffer.allocate(offset + bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(offset + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (ByteBuffer buffer : new ByteBuffer[]{heap, direct}) {
+            buffer.position(offset);
+            buffer.put(bytes);
+            buffer.clear();
+        }
+
+        return new ByteBuffer[]{heap, direct};
+    }
+
+    private static int naiveIndexOf(byte[] bytes, int from, byte b1, byte b2, byte b3) {
+        for (int i = from; i < bytes.length; ++i) {
+            if (b1 == bytes[i] || b2 == bytes[i] || b3 == bytes[i]) {
+                return i;
+            }
+        }
+
+        return bytes.length;
+    }
+}
@@ -2,7 +2,19 @@ package com.polyglotsoft.csv;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class CsvParserTest {
@@ -14,6 +26,24 @@ public class CsvParserTest {
         assertEquals(0, csvParser.parseLine("").length);
     }
 
+    @Test
+    public void shouldTreatOnlyAsciiWhitespaceAsWhitespace() throws IOException {
+        for (String line : new String[]{"\u3000\"a,b\",c", "\u00A0\"a\"\"b\",c", " \u2003 \"a\",\u2028\"b\"",
+                "\t \"a,b\" ,c"}) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+
+            assertArrayEquals(line, csvParser.parseLine(bytes, 0, bytes.length), csvParser.parseLine(line));
+        }
+
+        String content = "\u3000\"a\nb\",c\n";
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, csvParser);
+
+        assertArrayEquals(new String[]{"\u3000\"a"}, reader.readRecord());
+        assertArrayEquals(new String[]{"b\"", "c"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
     @Test
     public void shouldParseSingleEmptyField() {
         String[] result = csvParser.parseLine("\"\"");
@@ -376,4 +406,171 @@ public class CsvParserTest {
         assertEquals(1, result.length);
         assertEquals("\"\"a\"\"", result[0]);
     }
+
+    @Test
+    public void shouldParseProjectedColumnsInProjectionOrder() {
+        CsvParser projected = csvParser.withProjection(3, 0, 12);
+
+        String[] result = projected.parseLine("a,\"b,\"\"b\",c,\"d\"\"d\",e,f,g,h,i,j,k,l,m,n");
+
+        assertEquals(3, result.length);
+        assertEquals("d\"d", result[0]);
+        assertEquals("a", result[1]);
+        assertEquals("m", result[2]);
+    }
+
+    @Test
+    public void shouldReturnNullForMissingProjectedColumns() {
+        String[] result = csvParser.withProjection(1, 4).parseLine("a,b,c");
+
+        assertEquals(2, result.length);
+        assertEquals("b", result[0]);
+        assertNull(result[1]);
+
+        result = csvParser.withProjection(1).parseLine(" ");
+
+        assertEquals(1, result.length);
+        assertNull(result[0]);
+    }
+
+    @Test
+    public void shouldProjectColumnsByName() {
+        String[] header = csvParser.parseLine("Year,Make,Model,Description,Price");
+        CsvParser projected = csvParser.withProjection(header, "Price", "Make");
+
+        assertArrayEquals(new int[]{4, 1}, projected.getProjection());
+
+        String[] result = projected.parseLine("1997,Ford,E350,\"ac, abs, moon\",3000.00");
+
+        assertEquals(2, result.length);
+        assertEquals("3000.00", result[0]);
+        assertEquals("Ford", result[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownColumnName() {
+        csvParser.withProjection(new String[]{"a", "b"}, "c");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateProjectedColumn() {
+        csvParser.withProjection(1, 2, 1);
+    }
+
+    @Test
+    public void shouldFilterLines() {
+        CsvParser filtered = csvParser.withFilter(new CsvRowFilter()
+                .equalTo(1, "Chevy")
+                .between(4, 4000, 5000));
+
+        assertNull(filtered.parseLine("1997,Ford,E350,\"ac, abs, moon\",3000.00"));
+        assertNull(filtered.parseLine("1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",5000.01"));
+        assertNull(filtered.parseLine("1999,Chevy,Venture"));
+
+        String[] result = filtered.parseLine("1999,\"Chevy\",\"Venture \"\"Extended Edition\"\"\",\"\",4900.00");
+
+        assertEquals(5, result.length);
+        assertEquals("Venture \"Extended Edition\"", result[2]);
+    }
+
+    @Test
+    public void shouldFilterOnColumnsOutsideProjectionAndLimit() {
+        CsvParser parser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 2);
+        CsvRowFilter filter = new CsvRowFilter().startsWith(3, "ke").matching(0, (index, field) -> index.isBlank(field));
+
+        assertArrayEquals(new String[]{"", "b"}, parser.withFilter(filter).parseLine(",b,c,keep"));
+        assertNull(parser.withFilter(filter).parseLine(",b,c,drop"));
+        assertNull(parser.withFilter(filter).parseLine("a,b,c,keep"));
+        assertArrayEquals(new String[]{"c"}, parser.withProjection(2).withFilter(filter).parseLine(" ,b,c,keep,e"));
+    }
+
+    @Test
+    public void shouldParseUtf8Bytes() {
+        byte[] bytes = "xx1,\"Köln, \"\"Altstadt\"\"\", 𝄞 ,\"\"yy".getBytes(StandardCharsets.UTF_8);
+
+        String[] result = csvParser.parseLine(bytes, 2, bytes.length - 4);
+
+        assertArrayEquals(new String[]{"1", "Köln, \"Altstadt\"", " 𝄞 ", ""}, result);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip().position(2);
+        direct.limit(bytes.length - 2);
+
+        assertArrayEquals(result, csvParser.parseBuffer(direct));
+        assertEquals(2, direct.position());
+    }
+
+    @Test
+    public void shouldApplyLimitsToBytes() {
+        CsvParser newParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 5, 2);
+        CsvFieldIndex index = new CsvFieldIndex();
+        byte[] bytes = "äö,ü€,x,y".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(2, newParser.parseLine(bytes, 0, bytes.length, index));
+        assertArrayEquals(new String[]{"äö", "ü€"}, index.toArray());
+        assertEquals(5, index.getStart(1));
+
+        assertArrayEquals(new String[]{"äö", "ü"}, new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 4, 2)
+                .parseLine(bytes, 0, bytes.length));
+        assertEquals(0, csvParser.parseLine(new byte[0], 0, 0).length);
+    }
+
+    @Test
+    public void shouldParseFromManyThreads() throws Exception {
+        CsvParser shared = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+        String[] lines = new String[64];
+        String[][] expected = new String[lines.length][];
+
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < lines.length; ++i, padding.append('x')) {
+            lines[i] = i + ",\"Venture \"\"" + padding + "\"\"\", " + i;
+            expected[i] = new String[]{String.valueOf(i), "Venture \"" + padding + "\"", " " + i};
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 4; ++t) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 2000; ++round) {
+                        int i = (round * 7 + seed) % lines.length;
+
+                        assertArrayEquals(expected[i], shared.parseLine(lines[i]));
+                        assertArrayEquals(expected[i],
+                                shared.parseBuffer(ByteBuffer.wrap(lines[i].getBytes(StandardCharsets.UTF_8))));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldApplyErrorPolicyToLines() {
+        CsvErrorSink sink = new CsvErrorSink();
+        CsvParser lenient = csvParser.withErrorPolicy(CsvErrorPolicy.LENIENT, sink);
+
+        assertArrayEquals(csvParser.parseLine("a,\"b"), lenient.parseLine("a,\"b"));
+        assertArrayEquals(new String[]{"a", "b"}, lenient.parseLine("a,b"));
+        assertEquals(1, sink.getErrorCount());
+        assertEquals(-1, sink.getErrors().get(0).getRow());
+        assertEquals(-1, sink.getErrors().get(0).getOffset());
+
+        assertNull(csvParser.withErrorPolicy(CsvErrorPolicy.SKIP, null).parseLine("a,\"b"));
+        assertEquals(-1, csvParser.withErrorPolicy(CsvErrorPolicy.SKIP, null).parseLine("a,\"b",
+                new CsvFieldIndex()));
+    }
+
+    @Test(expected = CsvFormatException.class)
+    public void shouldThrowForBadLineWhenStrict() {
+        new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 2).withErrorPolicy(CsvErrorPolicy.STRICT, null)
+                .parseLine("1,2,3");
+    }
 }
@@ -0,0 +1,253 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvPipelineTest {
+    private static final String CONTENT = "Year,Make,Model,Description,Price\r\n"
+            + "1997,Ford,E350,\"ac, abs, moon\",3000.00\r\n"
+            + "1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",4900.00\r\n"
+            + "\n"
+            + "1996,Jeep,Grand Cherokee,\"MUST SELL!\n\"\"air\"\", moon roof,\nloaded\",4799.00\r\n"
+            + "Köln,\"a\nb\",c\n"
+            + "last";
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldMatchReaderForAnyBatchAndBufferSize() throws IOException, InterruptedException {
+        List<String[]> expected = readSequentially(CONTENT);
+
+        for (int batchSize = 1; batchSize <= 4; ++batchSize) {
+            for (int bufferSize = 1; bufferSize <= 16; bufferSize <<= 1) {
+                try (CsvBatches batches = new CsvBatches(stream(CONTENT), false, csvParser, batchSize, 2, 3,
+                        bufferSize)) {
+                    List<String[]> actual = new ArrayList<>();
+
+                    for (List<String[]> batch; null != (batch = batches.take()); ) {
+                        assertTrue(batch.size() <= batchSize);
+
+                        actual.addAll(batch);
+                    }
+
+                    assertNull(batches.take());
+                    assertEquals(expected.size(), actual.size());
+                    for (int i = 0; i < expected.size(); ++i) {
+                        assertArrayEquals("batch " + batchSize + ", buffer " + bufferSize, expected.get(i),
+                                actual.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadNothing() throws IOException, InterruptedException {
+        try (CsvBatches batches = new CsvPipeline(csvParser).open(stream(""))) {
+            assertNull(batches.take());
+        }
+    }
+
+    @Test
+    public void shouldStopReadingWhenQueueIsFull() throws IOException, InterruptedException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            content.append(i).append(",record\n");
+        }
+
+        AtomicInteger read = new AtomicInteger();
+        InputStream in = new FilterInputStream(stream(content.toString())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+
+                read.addAndGet(Math.max(0, count));
+
+                return count;
+            }
+        };
+
+        try (CsvBatches batches = new CsvBatches(in, false, csvParser, 10, 2, 1, 64)) {
+            Thread.sleep(200);
+
+            assertTrue(String.valueOf(read.get()), read.get() < content.length() / 10);
+            assertArrayEquals(new String[]{"0", "record"}, batches.take().get(0));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldPassReadErrorsToConsumer() throws IOException, InterruptedException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken");
+            }
+        };
+
+        try (CsvBatches batches = new CsvPipeline(csvParser).open(failing)) {
+            batches.take();
+        }
+    }
+
+    @Test(timeout = 10_000, expected = IllegalStateException.class)
+    public void shouldPassUncheckedReadErrorsToConsumer() throws IOException, InterruptedException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("broken");
+            }
+        };
+
+        try (CsvBatches batches = new CsvPipeline(csvParser).open(failing)) {
+            batches.take();
+        }
+    }
+
+    @Test
+    public void shouldBoundRecordsLikeCsvReader() throws IOException, InterruptedException {
+        StringBuilder content = new StringBuilder("a,b\n\"open,x\n");
+        for (int i = 0; i < 200; ++i) {
+            content.append("next,").append(i).append('\n');
+        }
+
+        CsvParser limited = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 20, 3);
+        for (CsvParser parser : new CsvParser[]{limited, limited.withErrorPolicy(CsvErrorPolicy.LENIENT, null),
+                limited.withErrorPolicy(CsvErrorPolicy.SKIP, null)}) {
+            for (int bufferSize : new int[]{8, 64, 4096}) {
+                List<String[]> expected = new ArrayList<>();
+                List<String[]> records = new ArrayList<>();
+                CsvReader reader = new CsvReader(new StringReader(content.toString()), parser);
+
+                for (String[] record; null != (record = reader.readRecord()); ) {
+                    expected.add(record);
+                }
+
+                try (CsvBatches batches = new CsvBatches(stream(content.toString()), false, parser, 3, 2, 2,
+                        bufferSize)) {
+                    for (List<String[]> batch; null != (batch = batches.take()); ) {
+                        records.addAll(batch);
+                    }
+                }
+
+                assertEquals(expected.size(), records.size());
+                for (int i = 0; i < expected.size(); ++i) {
+                    assertArrayEquals(expected.get(i), records.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepWholeCharsOfLongRecords() throws IOException, InterruptedException {
+        String content = "a,b\nééééé\néééééééééé\nx\uD83D\uDE00é\uD83D\uDE00\nKöln,\"éé\néé\nlast\n";
+        CsvParser limited = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 4, 3);
+
+        for (CsvErrorPolicy policy : new CsvErrorPolicy[]{null, CsvErrorPolicy.LENIENT, CsvErrorPolicy.SKIP}) {
+            CsvErrorSink expectedErrors = new CsvErrorSink();
+            List<String[]> expected = new ArrayList<>();
+            CsvReader reader = new CsvReader(new StringReader(content), limited.withErrorPolicy(policy,
+                    expectedErrors));
+
+            for (String[] record; null != (record = reader.readRecord()); ) {
+                expected.add(record);
+            }
+
+            for (int bufferSize = 1; bufferSize <= 32; ++bufferSize) {
+                CsvErrorSink errors = new CsvErrorSink();
+                List<String[]> records = new ArrayList<>();
+
+                try (CsvBatches batches = new CsvBatches(stream(content), false, limited.withErrorPolicy(policy,
+                        errors), 2, 2, 2, bufferSize)) {
+                    for (List<String[]> batch; null != (batch = batches.take()); ) {
+                        records.addAll(batch);
+                    }
+                }
+
+                String message = policy + ", buffer " + bufferSize;
+                assertEquals(message, expected.size(), records.size());
+                for (int i = 0; i < expected.size(); ++i) {
+                    assertArrayEquals(message, expected.get(i), records.get(i));
+                }
+
+                // workers report errors in any order
+                List<CsvError> actualErrors = new ArrayList<>(errors.getErrors());
+                actualErrors.sort(Comparator.comparingLong(CsvError::getRow));
+
+                assertEquals(message, expectedErrors.getErrorCount(), actualErrors.size());
+                for (int i = 0; i < actualErrors.size(); ++i) {
+                    assertEquals(message, expectedErrors.getErrors().get(i).getReason(),
+                            actualErrors.get(i).getReason());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportCutRecordsWithRowAndOffset() throws IOException, InterruptedException {
+        CsvErrorSink sink = new CsvErrorSink();
+        String content = "a,b\n1,\"open\n2,c\n3,d\n4,e\n5,f\n6,g\n";
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvBatches batches = new CsvBatches(stream(content), false, new CsvParser(CsvParser.COMMA,
+                CsvParser.DOUBLE_QUOTES, 10, 3).withErrorPolicy(CsvErrorPolicy.SKIP, sink), 2, 2, 2, 4)) {
+            for (List<String[]> batch; null != (batch = batches.take()); ) {
+                records.addAll(batch);
+            }
+        }
+
+        assertEquals(6, records.size());
+        assertArrayEquals(new String[]{"6", "g"}, records.get(5));
+        assertEquals(1, sink.getErrorCount());
+        assertEquals(1, sink.getErrors().get(0).getRow());
+        assertEquals(4, sink.getErrors().get(0).getOffset());
+    }
+
+    private List<String[]> readSequentially(String content) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        CsvReader reader = new CsvReader(new StringReader(content), csvParser);
+
+        for (String[] record; null != (record = reader.readRecord()); ) {
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldReportErrorsWithRowAndOffset() throws IOException, InterruptedException {
+        CsvErrorSink sink = new CsvErrorSink();
+        String content = "1,a\n2,b\n\n3,\"c";
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvBatches batches = new CsvBatches(stream(content), false,
+                csvParser.withErrorPolicy(CsvErrorPolicy.SKIP, sink), 1, 2, 2, 4)) {
+            for (List<String[]> batch; null != (batch = batches.take()); ) {
+                records.addAll(batch);
+            }
+        }
+
+        assertEquals(2, records.size());
+        assertEquals(1, sink.getErrorCount());
+        assertEquals(2, sink.getErrors().get(0).getRow());
+        assertEquals(9, sink.getErrors().get(0).getOffset());
+    }
+}
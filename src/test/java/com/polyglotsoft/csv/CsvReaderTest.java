@@ -0,0 +1,237 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CsvReaderTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldReadNothing() throws IOException {
+        assertNull(new CsvReader(new StringReader(""), csvParser).readRecord());
+        assertNull(new CsvReader(new StringReader("\r\n\n\r"), csvParser).readRecord());
+    }
+
+    @Test
+    public void shouldReadRecordsWithAnyLineBreak() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\nc,d\r\ne,f\rg,h"), csvParser);
+
+        assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+        assertArrayEquals(new String[]{"c", "d"}, reader.readRecord());
+        assertArrayEquals(new String[]{"e", "f"}, reader.readRecord());
+        assertArrayEquals(new String[]{"g", "h"}, reader.readRecord());
+        assertNull(reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldSkipEmptyLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\n\na\n\r\n \nb\n"), csvParser);
+
+        assertArrayEquals(new String[]{"a"}, reader.readRecord());
+        assertArrayEquals(new String[]{" "}, reader.readRecord());
+        assertArrayEquals(new String[]{"b"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldReadProjectedColumns() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\nb\",c\nd\ne,f,g,h"),
+                csvParser.withProjection(2, 1));
+
+        assertArrayEquals(new String[]{"c", "b\nb"}, reader.readRecord());
+        assertArrayEquals(new String[]{null, null}, reader.readRecord());
+        assertArrayEquals(new String[]{"g", "f"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldReadQuotedLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "1,\"2,two\",\"3\nthree\",\"4\"\"four\"\n"
+                        + "1996,Jeep,Grand Cherokee,\"MUST SELL!\r\nair, moon roof, loaded\",4799.00\r\n"
+                        + "\"\"\"a\"\"\"\n\"\",x\nnext"), csvParser);
+
+        assertArrayEquals(new String[]{"1", "2,two", "3\nthree", "4\"four"}, reader.readRecord());
+        assertArrayEquals(new String[]{"1996", "Jeep", "Grand Cherokee", "MUST SELL!\r\nair, moon roof, loaded",
+                "4799.00"}, reader.readRecord());
+        assertArrayEquals(new String[]{"\"a\""}, reader.readRecord());
+        assertArrayEquals(new String[]{"", "x"}, reader.readRecord());
+        assertArrayEquals(new String[]{"next"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldNotOpenQuotationInsideUnquotedField() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("1\",2\"\naddr\"\"ess\nlast"), csvParser);
+
+        assertArrayEquals(new String[]{"1\"", "2\""}, reader.readRecord());
+        assertArrayEquals(new String[]{"addr\"ess"}, reader.readRecord());
+        assertArrayEquals(new String[]{"last"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldReadAcrossBufferRefills() throws IOException {
+        String input = "Unquoted test, \"Quoted test\", 23234, One Two Three, \"343456.45\"\n"
+                + "Unquoted test 2, \"Quoted test with \"\"inner\"\" quotes\", 23234, One Two Three, \"34312.7\"\r\n"
+                + "1999,Chevy,\"Venture \"\"Extended Edition, Very Large\"\"\",,5000.00";
+
+        for (int bufferSize = 1; bufferSize < 16; ++bufferSize) {
+            CsvReader reader = new CsvReader(new StringReader(input), csvParser, bufferSize);
+
+            for (String line : input.split("\r?\n")) {
+                assertArrayEquals(csvParser.parseLine(line), reader.readRecord());
+            }
+
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldApplyLineLimitPerRecord() throws IOException {
+        CsvParser newParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 9, 1);
+        CsvReader reader = new CsvReader(new StringReader("1234567890\n\"          \"\n123, 456789"), newParser, 4);
+
+        assertArrayEquals(new String[]{"123456789"}, reader.readRecord());
+        assertArrayEquals(new String[]{"\"        "}, reader.readRecord());
+        assertArrayEquals(new String[]{"123"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldReadUnclosedQuotationUntilEnd() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\nc,d"), csvParser);
+
+        String[] result = reader.readRecord();
+
+        assertEquals(3, result.length);
+        assertEquals("a", result[0]);
+        assertEquals("\"b\nc", result[1]);
+        assertEquals("d", result[2]);
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldReadInputStream() throws IOException {
+        byte[] bytes = "ä;\"ö\nü\"\n".getBytes(StandardCharsets.UTF_8);
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8,
+                new CsvParser(CsvParser.SEMICOLON));
+
+        assertArrayEquals(new String[]{"ä", "ö\nü"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldSkipFilteredRecords() throws IOException {
+        CsvParser filtered = csvParser.withFilter(new CsvRowFilter().equalTo(0, "keep"));
+        CsvReader reader = new CsvReader(new StringReader("keep,1\ndrop,\"2\n2\"\nkeep,\"3\n3\"\ndrop,4"),
+                filtered, 4);
+
+        assertArrayEquals(new String[]{"keep", "1"}, reader.readRecord());
+        assertArrayEquals(new String[]{"keep", "3\n3"}, reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldResyncAfterRunawayQuotation() throws IOException {
+        String content = "a,b\n\"open,x\nnext,1\nnext,2\nnext,3\nlast,4\n";
+        CsvParser limited = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 20, 3);
+
+        for (int bufferSize : new int[]{4, CsvReader.BUFFER_SIZE}) {
+            CsvErrorSink sink = new CsvErrorSink();
+            CsvReader reader = new CsvReader(new StringReader(content),
+                    limited.withErrorPolicy(CsvErrorPolicy.LENIENT, sink), bufferSize);
+
+            assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+            assertArrayEquals(limited.parseLine("\"open,x"), reader.readRecord());
+            assertArrayEquals(new String[]{"next", "1"}, reader.readRecord());
+            assertArrayEquals(new String[]{"next", "2"}, reader.readRecord());
+            assertArrayEquals(new String[]{"next", "3"}, reader.readRecord());
+            assertArrayEquals(new String[]{"last", "4"}, reader.readRecord());
+            assertNull(reader.readRecord());
+            assertEquals(6, reader.getRow());
+
+            assertEquals(1, sink.getErrorCount());
+            assertEquals(CsvError.Reason.UNCLOSED_QUOTATION, sink.getErrors().get(0).getReason());
+            assertEquals(1, sink.getErrors().get(0).getRow());
+            assertEquals(4, sink.getErrors().get(0).getOffset());
+        }
+    }
+
+    @Test
+    public void shouldCutLongRecordsAtFirstLineBreakForAnyBufferSize() throws IOException {
+        CsvParser short3 = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 3, 3)
+                .withErrorPolicy(CsvErrorPolicy.LENIENT, null);
+        CsvParser short8 = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 8, 3)
+                .withErrorPolicy(CsvErrorPolicy.LENIENT, null);
+
+        for (int bufferSize : new int[]{1, 2, 3, 4, 5, 7, 11, CsvReader.BUFFER_SIZE}) {
+            assertRecords(new CsvReader(new StringReader("\"ab\nc,d\ne\"\nz\n"), short3, bufferSize),
+                    short3.parseLine("\"ab"), new String[]{"c", "d"}, new String[]{"e\""}, new String[]{"z"});
+            assertRecords(new CsvReader(new StringReader("a,\"bcdefghij\n1,2\n3,4\n"), short8, bufferSize),
+                    short8.parseLine("a,\"bcdefghij"), new String[]{"1", "2"}, new String[]{"3", "4"});
+            assertRecords(new CsvReader(new StringReader("x\n\"a\nb"), short3, bufferSize),
+                    new String[]{"x"}, short3.parseLine("\"a"), new String[]{"b"});
+        }
+    }
+
+    @Test
+    public void shouldSkipBadRecords() throws IOException {
+        String content = "a,b\n\"open,x\nnext,1\nnext,2\n1,2,3,4\n" + "0123456789012345678901234\nlast,4";
+        CsvErrorSink sink = new CsvErrorSink();
+        CsvReader reader = new CsvReader(new StringReader(content), new CsvParser(CsvParser.COMMA,
+                CsvParser.DOUBLE_QUOTES, 20, 3).withErrorPolicy(CsvErrorPolicy.SKIP, sink), 5);
+
+        assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+        assertArrayEquals(new String[]{"next", "1"}, reader.readRecord());
+        assertArrayEquals(new String[]{"next", "2"}, reader.readRecord());
+        assertArrayEquals(new String[]{"last", "4"}, reader.readRecord());
+        assertNull(reader.readRecord());
+
+        List<CsvError> errors = sink.getErrors();
+        assertEquals(3, errors.size());
+        assertEquals(CsvError.Reason.UNCLOSED_QUOTATION, errors.get(0).getReason());
+        assertEquals(CsvError.Reason.TOO_MANY_COLUMNS, errors.get(1).getReason());
+        assertEquals(4, errors.get(1).getRow());
+        assertEquals(content.indexOf("1,2,3,4"), errors.get(1).getOffset());
+        assertEquals(CsvError.Reason.LINE_TOO_LONG, errors.get(2).getReason());
+        assertEquals(5, errors.get(2).getRow());
+    }
+
+    @Test
+    public void shouldFailOnBadRecordWhenStrict() throws IOException {
+        CsvErrorSink sink = new CsvErrorSink();
+        CsvReader reader = new CsvReader(new StringReader("a,b\n\"open,x\nnext,1"),
+                csvParser.withErrorPolicy(CsvErrorPolicy.STRICT, sink));
+
+        assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+
+        try {
+            reader.readRecord();
+            fail();
+        } catch (CsvFormatException e) {
+            assertEquals(CsvError.Reason.UNCLOSED_QUOTATION, e.getError().getReason());
+            assertEquals(1, e.getError().getRow());
+            assertEquals(1, sink.getErrorCount());
+        }
+    }
+
+    private static void assertRecords(CsvReader reader, String[]... records) throws IOException {
+        for (String[] record : records) {
+            assertArrayEquals(record, reader.readRecord());
+        }
+
+        assertNull(reader.readRecord());
+    }
+}
@@ -0,0 +1,136 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CsvRowIndexTest {
+    private static final String CONTENT = "id,name\n1,\"multi\nline\"\n\n2,plain\r\n3,\"a,b\"\r\n\r\n"
+            + "4,\"x\r\ny\"\n5,Köln\n6,\"\"\"q\"\"\"\n7,last";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldSeekToEveryRow() throws IOException {
+        Path path = write(CONTENT);
+        List<String[]> records = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, csvParser)) {
+            while (reader.next()) {
+                String[] record = new String[reader.getFieldCount()];
+
+                for (int i = 0; i < record.length; ++i) {
+                    record[i] = reader.getField(i);
+                }
+
+                records.add(record);
+                offsets.add(reader.getRecordOffset());
+            }
+        }
+
+        for (int stride = 1; stride <= 4; ++stride) {
+            for (int windowSize = 1; windowSize <= 16; windowSize += 5) {
+                CsvRowIndex index = CsvRowIndex.build(path, csvParser, stride, windowSize);
+
+                assertEquals(records.size(), index.getRowCount());
+
+                for (int row = 0; row < records.size(); ++row) {
+                    assertEquals(offsets.get(row).longValue(), index.getOffset(path, csvParser, row));
+
+                    try (MappedCsvReader reader = index.open(path, csvParser, row)) {
+                        assertArrayEquals(records.get(row), reader.readRecord());
+                    }
+                }
+
+                assertEquals(Files.size(path), index.getOffset(path, csvParser, records.size()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadRangeAfterSeek() throws IOException {
+        Path path = write(CONTENT);
+        CsvRowIndex index = CsvRowIndex.build(path, csvParser, 2);
+
+        try (MappedCsvReader reader = index.open(path, csvParser, 6)) {
+            assertArrayEquals(new String[]{"6", "\"q\""}, reader.readRecord());
+            assertArrayEquals(new String[]{"7", "last"}, reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+
+        try (MappedCsvReader reader = index.open(path, csvParser, 8)) {
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldPersistIndex() throws IOException {
+        Path path = write(CONTENT);
+        Path indexPath = folder.getRoot().toPath().resolve("data.csv.idx");
+        CsvRowIndex built = CsvRowIndex.build(path, csvParser, 3);
+
+        built.write(indexPath);
+        CsvRowIndex read = CsvRowIndex.read(indexPath);
+
+        assertEquals(built.getStride(), read.getStride());
+        assertEquals(built.getRowCount(), read.getRowCount());
+        assertEquals(built.getFileSize(), read.getFileSize());
+
+        for (int row = 0; row <= built.getRowCount(); ++row) {
+            assertEquals(built.getOffset(path, csvParser, row), read.getOffset(path, csvParser, row));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectChangedFile() throws IOException {
+        Path path = write(CONTENT);
+        CsvRowIndex index = CsvRowIndex.build(path, csvParser);
+
+        Files.write(path, "\n8,more".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        index.open(path, csvParser, 1).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOtherDialect() throws IOException {
+        Path path = write(CONTENT);
+
+        CsvRowIndex.build(path, csvParser).getOffset(path, new CsvParser(CsvParser.SEMICOLON,
+                CsvParser.DOUBLE_QUOTES, 100, 10), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRowOutOfRange() throws IOException {
+        Path path = write(CONTENT);
+
+        CsvRowIndex.build(path, csvParser).getOffset(path, csvParser, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectResynchronizingPolicy() throws IOException {
+        CsvRowIndex.build(write(CONTENT), csvParser.withErrorPolicy(CsvErrorPolicy.LENIENT, null));
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile("data.csv").toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        return path;
+    }
+}
@@ -0,0 +1,84 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CsvRowTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldViewFieldsOfChars() {
+        CsvRow row = new CsvRow();
+
+        assertEquals(3, row.parse(csvParser, "plain, \"4\"\"four\" ,\"\""));
+
+        CharSequence plain = row.get(0);
+        CharSequence escaped = row.get(1);
+
+        assertEquals(5, plain.length());
+        assertEquals('l', plain.charAt(1));
+        assertEquals("plain", plain.toString());
+        assertEquals("4\"four", escaped.toString());
+        assertEquals(6, escaped.length());
+        assertEquals("four", escaped.subSequence(2, 6));
+        assertEquals(0, row.get(2).length());
+    }
+
+    @Test
+    public void shouldViewFieldsOfBytes() {
+        CsvRow row = new CsvRow();
+        byte[] bytes = "Köln,\"𝄞 \"\"x\"\"\"".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(2, row.parse(csvParser, bytes, 0, bytes.length));
+        assertEquals("Köln", row.get(0).toString());
+        assertEquals(4, row.get(0).length());
+        assertEquals("𝄞 \"x\"", row.get(1).toString());
+        assertEquals('\uDD1E', row.get(1).charAt(1));
+    }
+
+    @Test
+    public void shouldReuseViewsAcrossRows() throws IOException {
+        CsvRow row = new CsvRow();
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\"\"\"\nc,\"d\"\"\"\n"), csvParser);
+
+        assertTrue(row.read(reader));
+        CharSequence first = row.get(1);
+        assertEquals("b\"", first.toString());
+
+        assertTrue(row.read(reader));
+        assertSame(first, row.get(1));
+        assertEquals("d\"", first.toString());
+        assertEquals("c", row.get(0).toString());
+
+        assertFalse(row.read(reader));
+    }
+
+    @Test
+    public void shouldReturnNullForMissingColumns() {
+        CsvRow row = new CsvRow();
+
+        assertEquals(2, row.parse(csvParser.withProjection(0, 5), "a,b"));
+        assertEquals("a", row.get(0).toString());
+        assertNull(row.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectStaleViews() {
+        CsvRow row = new CsvRow();
+
+        row.parse(csvParser, "a,b");
+        CharSequence second = row.get(1);
+        row.parse(csvParser, "a");
+
+        second.length();
+    }
+}
@@ -0,0 +1,129 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CsvSchemaTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldResolveNames() {
+        CsvSchema schema = new CsvSchema("id", "name", "amount", "id", null);
+
+        assertEquals(5, schema.size());
+        assertEquals(0, schema.indexOf("id"));
+        assertEquals(1, schema.indexOf("name"));
+        assertEquals(2, schema.indexOf(new String("amount")));
+        assertEquals(-1, schema.indexOf("missing"));
+        assertEquals(-1, schema.indexOf(""));
+        assertArrayEquals(new int[]{2, 0}, schema.indexesOf("amount", "id"));
+    }
+
+    @Test
+    public void shouldResolveManyNames() {
+        String[] names = new String[1000];
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = "column" + i;
+        }
+
+        CsvSchema schema = new CsvSchema(names);
+
+        for (int i = 0; i < names.length; ++i) {
+            assertEquals(i, schema.indexOf("column" + i));
+        }
+
+        assertEquals(-1, new CsvSchema().indexOf("column0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownProjection() {
+        new CsvSchema("id", "name").indexesOf("name", "amount");
+    }
+
+    @Test
+    public void shouldGetValuesByName() {
+        CsvSchema schema = CsvSchema.parse(csvParser, "id,name,amount");
+        CsvRecord record = schema.record(csvParser.parseLine("7,\"Smith, J\""));
+
+        assertEquals("7", record.get("id"));
+        assertEquals("Smith, J", record.get("name"));
+        assertNull(record.get("amount"));
+        assertEquals(2, record.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownName() {
+        new CsvSchema("id").record(new String[]{"1"}).get("name");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldHonourColumnLimit() {
+        CsvParser limited = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 2);
+        CsvSchema schema = CsvSchema.parse(limited, "id,name,amount");
+
+        assertEquals(2, schema.size());
+
+        schema.record(limited.parseLine("1,a,3")).get("amount");
+    }
+
+    @Test
+    public void shouldReadProjectedRecordsByName() throws IOException {
+        String content = "id,name,amount\n1,a,10\n2,b,20\n";
+        CsvSchema schema = CsvSchema.read(new CsvReader(new StringReader(content), csvParser));
+        CsvParser projected = csvParser.withProjection(schema, "amount", "id");
+        CsvSchema selected = schema.select("amount", "id");
+
+        try (CsvReader reader = new CsvReader(new StringReader(content), projected)) {
+            CsvSchema header = CsvSchema.read(reader);
+
+            assertArrayEquals(selected.getNames(), header.getNames());
+
+            CsvRecord record = selected.record(reader.readRecord());
+            assertEquals("10", record.get("amount"));
+            assertEquals("1", record.get("id"));
+
+            record = header.record(reader.readRecord());
+            assertEquals("20", record.get("amount"));
+            assertEquals("2", record.get(1));
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldParseHeaderWithoutRowFilter() {
+        CsvParser filtered = csvParser.withFilter(new CsvRowFilter().equalTo(0, "1"));
+        CsvSchema schema = CsvSchema.parse(filtered, "id,name,amount");
+
+        assertArrayEquals(new String[]{"id", "name", "amount"}, schema.getNames());
+        assertNull(filtered.parseLine("id,name,amount"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFilteringReader() throws IOException {
+        CsvParser filtered = csvParser.withFilter(new CsvRowFilter().equalTo(0, "1"));
+
+        CsvSchema.read(new CsvReader(new StringReader("id,name\n1,a\n"), filtered));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSkippedHeader() {
+        CsvSchema.parse(new CsvParser().withErrorPolicy(CsvErrorPolicy.SKIP, null), "a,\"b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSkippingReader() throws IOException {
+        CsvSchema.read(new CsvReader(new StringReader("a,\"b\n1,2\n"), csvParser.withErrorPolicy(CsvErrorPolicy.SKIP,
+                null)));
+    }
+
+    @Test
+    public void shouldReadNoSchemaFromEmptyInput() throws IOException {
+        assertNull(CsvSchema.read(new CsvReader(new StringReader("\n"), csvParser)));
+    }
+}
@@ -0,0 +1,138 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvSpliteratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldStreamRecords() throws IOException {
+        Path path = write("a,b\n\"c\nd\",e\n\nf");
+
+        try (Stream<String[]> stream = csvParser.stream(path)) {
+            List<String[]> records = stream.collect(Collectors.toList());
+
+            assertEquals(3, records.size());
+            assertArrayEquals(new String[]{"a", "b"}, records.get(0));
+            assertArrayEquals(new String[]{"c\nd", "e"}, records.get(1));
+            assertArrayEquals(new String[]{"f"}, records.get(2));
+        }
+
+        try (Stream<CsvFieldIndex> stream = csvParser.streamFieldIndexes(path)) {
+            assertEquals(2L, stream.filter(index -> index.contentEquals(0, "a") || 2 == index.size()).count());
+        }
+    }
+
+    @Test
+    public void shouldSplitAtRecordBoundaries() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 500; ++i) {
+            builder.append(i).append(",\"quoted\n").append(i).append(",\"\"x\"\"\"\n");
+        }
+
+        Path path = write(builder.toString());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Spliterator<String[]> spliterator = new CsvSpliterator<>(channel, csvParser, CsvFieldIndex::toArray, 64);
+
+            assertEquals(Spliterator.ORDERED | Spliterator.NONNULL, spliterator.characteristics());
+
+            Spliterator<String[]> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+            assertTrue(0 < prefix.estimateSize());
+
+            List<String[]> records = new ArrayList<>();
+            StreamSupport.stream(prefix, true).forEachOrdered(records::add);
+            StreamSupport.stream(spliterator, true).forEachOrdered(records::add);
+
+            assertEquals(500, records.size());
+            for (int i = 0; i < records.size(); ++i) {
+                assertArrayEquals(new String[]{String.valueOf(i), "quoted\n" + i + ",\"x\""}, records.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotSplitStartedSpliterator() throws IOException {
+        Path path = write("a\nb\nc\nd\n");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Spliterator<String[]> spliterator = new CsvSpliterator<>(channel, csvParser, CsvFieldIndex::toArray, 1);
+
+            assertTrue(spliterator.tryAdvance(record -> assertArrayEquals(new String[]{"a"}, record)));
+            assertNull(spliterator.trySplit());
+        }
+    }
+
+    @Test
+    public void shouldParallelStreamLargeFile() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        long expected = 0;
+        for (int i = 0; i < 100_000; ++i) {
+            builder.append(i).append(",\"multi\nline\",").append(i % 7).append('\n');
+            expected += i % 7;
+        }
+
+        Path path = write(builder.toString());
+
+        try (Stream<CsvFieldIndex> stream = csvParser.streamFieldIndexes(path)) {
+            assertEquals(expected, stream.parallel().mapToLong(index -> index.getLong(2)).sum());
+        }
+
+        try (Stream<String[]> stream = csvParser.stream(path)) {
+            assertEquals(100_000L, stream.parallel().filter(record -> "multi\nline".equals(record[1])).count());
+        }
+    }
+
+    @Test
+    public void shouldNotSplitWhenResynchronizing() throws IOException {
+        StringBuilder builder = new StringBuilder("a,b\n\"open,x\n");
+        for (int i = 0; i < 2000; ++i) {
+            builder.append(i).append(",next\n");
+        }
+
+        Path path = write(builder.toString());
+        CsvParser skipping = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 20, 3)
+                .withErrorPolicy(CsvErrorPolicy.SKIP, null);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            assertNull(new CsvSpliterator<>(channel, skipping, CsvFieldIndex::toArray, 64).trySplit());
+        }
+
+        try (Stream<String[]> stream = skipping.stream(path)) {
+            assertEquals(2001L, stream.parallel().count());
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        return path;
+    }
+}
@@ -0,0 +1,153 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CsvStringCacheTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldReuseRepeatedValues() {
+        CsvParser cached = csvParser.withStringCache(new CsvStringCache());
+
+        String[] first = cached.parseLine("DE,active,\"say \"\"hi\"\"\"");
+        String[] second = cached.parseLine("DE, active,\"say \"\"hi\"\"\"");
+
+        assertArrayEquals(new String[]{"DE", "active", "say \"hi\""}, first);
+        assertSame(first[0], second[0]);
+        assertSame(first[2], second[2]);
+        assertEquals(" active", second[1]);
+    }
+
+    @Test
+    public void shouldDecodeMalformedBytesLikeUncachedStrings() {
+        CsvStringCache cache = new CsvStringCache(1, 4);
+        CsvFieldIndex index = new CsvFieldIndex();
+        Random random = new Random(7);
+        byte[] line = new byte[6];
+
+        for (int n = 0; n < 2000; ++n) {
+            for (int i = 0; i < line.length; ++i) {
+                line[i] = 0 == random.nextInt(4) ? (byte) 'a' : (byte) (0x80 + random.nextInt(0x80));
+            }
+
+            csvParser.getTokenizer().tokenize(ByteBuffer.wrap(line), 0, line.length, index);
+
+            assertEquals(new String(line, StandardCharsets.UTF_8), cache.getString(index, 0));
+        }
+    }
+
+    @Test
+    public void shouldKeepColumnsApart() {
+        CsvParser cached = csvParser.withStringCache(new CsvStringCache());
+
+        String[] first = cached.parseLine("x,y");
+        String[] second = cached.parseLine("y,x");
+
+        assertNotSame(first[0], second[1]);
+        assertEquals(first[0], second[1]);
+    }
+
+    @Test
+    public void shouldReuseValuesFromBytes() {
+        CsvStringCache cache = new CsvStringCache(2, 16);
+        CsvFieldIndex index = new CsvFieldIndex();
+        byte[] line = "Köln,\"a\"\"b\"".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bytes = ByteBuffer.allocate(line.length << 1).put(line).put(line);
+
+        csvParser.getTokenizer().tokenize(bytes, 0, line.length, index);
+        String[] first = index.toArray(cache);
+        csvParser.getTokenizer().tokenize(bytes, line.length, line.length << 1, index);
+        String[] second = index.toArray(cache);
+
+        assertArrayEquals(new String[]{"Köln", "a\"b"}, second);
+        assertSame(first[0], second[0]);
+        assertSame(first[1], second[1]);
+    }
+
+    @Test
+    public void shouldStopCachingHighCardinalityColumns() {
+        CsvStringCache cache = new CsvStringCache(2, 64);
+        CsvFieldIndex index = new CsvFieldIndex();
+
+        for (int i = 0; i < CsvStringCache.WINDOW; ++i) {
+            csvParser.parseLine(i + ",flag" + (i % 3), index);
+
+            assertEquals(String.valueOf(i), cache.getString(index, 0));
+            assertEquals("flag" + (i % 3), cache.getString(index, 1));
+        }
+
+        assertFalse(cache.isCaching(0));
+        assertTrue(cache.isCaching(1));
+    }
+
+    @Test
+    public void shouldStopCachingHighCardinalityColumnsSharedByThreads() throws Exception {
+        CsvStringCache cache = new CsvStringCache(1, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 4; ++t) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    CsvFieldIndex index = new CsvFieldIndex();
+
+                    for (int i = 0; i < 10 * CsvStringCache.WINDOW; ++i) {
+                        csvParser.parseLine(seed + "-" + i, index);
+
+                        assertEquals(seed + "-" + i, cache.getString(index, 0));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // lost updates of the shared counters must not skip the check for good
+        assertFalse(cache.isCaching(0));
+    }
+
+    @Test
+    public void shouldPassThroughUncachedFields() {
+        CsvStringCache cache = new CsvStringCache(1, 16);
+        CsvFieldIndex index = new CsvFieldIndex();
+        String wide = new String(new char[CsvStringCache.MAX_LENGTH + 1]).replace('\0', 'w');
+
+        csvParser.withProjection(0, 3).parseLine(wide + ",b", index);
+
+        assertNotSame(cache.getString(index, 0), cache.getString(index, 0));
+        assertNull(cache.getString(index, 1));
+        assertFalse(cache.isCaching(1));
+    }
+
+    @Test
+    public void shouldReuseValuesInReaders() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("DE,1\nDE,2\n"), csvParser.withStringCache(new CsvStringCache()));
+
+        assertSame(reader.readRecord()[0], reader.readRecord()[0]);
+    }
+}
@@ -0,0 +1,204 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvTailReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldPassOnlyCompletedRecords() throws IOException {
+        Path path = folder.newFile("feed.csv").toPath();
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser, null, 4)) {
+            assertEquals(0, reader.poll(records::add));
+
+            append(path, "a,b\n1,\"Kö");
+            assertEquals(1, reader.poll(records::add));
+            assertEquals(4, reader.getOffset());
+
+            append(path, "ln\nx\"\n\n2,");
+            assertEquals(1, reader.poll(records::add));
+            assertEquals(0, reader.poll(records::add));
+
+            append(path, "z\n");
+            assertEquals(1, reader.poll(records::add));
+            assertEquals(3, reader.getRow());
+            assertEquals(Files.size(path), reader.getOffset());
+        }
+
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{"a", "b"}, records.get(0));
+        assertArrayEquals(new String[]{"1", "Köln\nx"}, records.get(1));
+        assertArrayEquals(new String[]{"2", "z"}, records.get(2));
+    }
+
+    @Test
+    public void shouldResumeFromCheckpoint() throws IOException {
+        Path path = folder.newFile("feed.csv").toPath();
+        Path checkpoint = folder.getRoot().toPath().resolve("feed.csv.tail");
+        List<String[]> records = new ArrayList<>();
+
+        append(path, "a,b\n1,\"open,");
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser, checkpoint)) {
+            assertEquals(1, reader.poll(records::add));
+        }
+
+        assertTrue(Files.exists(checkpoint));
+
+        append(path, "\nstill open\"\n3,c\n");
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser, checkpoint)) {
+            assertEquals(4, reader.getOffset());
+            assertEquals(1, reader.getRow());
+            assertEquals(2, reader.poll(records::add));
+            assertEquals(3, reader.getRow());
+        }
+
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser, checkpoint)) {
+            assertEquals(0, reader.poll(records::add));
+        }
+
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{"1", "open,\nstill open"}, records.get(1));
+        assertArrayEquals(new String[]{"3", "c"}, records.get(2));
+    }
+
+    @Test
+    public void shouldResyncAfterRunawayQuotation() throws IOException {
+        Path path = folder.newFile("feed.csv").toPath();
+        CsvErrorSink sink = new CsvErrorSink();
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvTailReader reader = new CsvTailReader(path, new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES,
+                20, 3).withErrorPolicy(CsvErrorPolicy.SKIP, sink), null, 8)) {
+            append(path, "a,b\n\"open,x\nnext,1\n");
+            reader.poll(records::add);
+
+            append(path, "next,2\nnext,3\n");
+            reader.poll(records::add);
+        }
+
+        assertEquals(4, records.size());
+        assertArrayEquals(new String[]{"next", "1"}, records.get(1));
+        assertArrayEquals(new String[]{"next", "3"}, records.get(3));
+        assertEquals(1, sink.getErrorCount());
+        assertEquals(4, sink.getErrors().get(0).getOffset());
+    }
+
+    @Test
+    public void shouldCutLongRecordsLikeCsvReaderForAnySplit() throws IOException {
+        String content = "a,b\n\"ab\nc,d\ne\"\nz\nKöln,\"bcdéfghijk\n1,2\n0123456789abcdef\nx\uD83D\uDE00é\uD83D\uDE00\n\"\nlast\n";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        for (CsvErrorPolicy policy : new CsvErrorPolicy[]{null, CsvErrorPolicy.LENIENT, CsvErrorPolicy.SKIP}) {
+            CsvParser parser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 5, 3)
+                    .withErrorPolicy(policy, null);
+            List<String[]> expected = new ArrayList<>();
+
+            try (CsvReader reader = new CsvReader(new StringReader(content), parser)) {
+                for (String[] record; null != (record = reader.readRecord()); ) {
+                    expected.add(record);
+                }
+            }
+
+            for (int step = 1; step < 12; ++step) {
+                Path path = folder.newFile().toPath();
+                Path checkpoint = folder.getRoot().toPath().resolve(path.getFileName() + ".tail");
+                List<String[]> records = new ArrayList<>();
+
+                for (int from = 0; from < bytes.length; from += step) {
+                    Files.write(path, Arrays.copyOfRange(bytes, from, Math.min(bytes.length, from + step)),
+                            StandardOpenOption.APPEND);
+
+                    // a new reader for every append also covers restoring the kept bytes of a long record
+                    try (CsvTailReader reader = new CsvTailReader(path, parser, checkpoint, 4)) {
+                        reader.poll(records::add);
+                    }
+                }
+
+                assertEquals(policy + ", step " + step, expected.size(), records.size());
+                for (int i = 0; i < expected.size(); ++i) {
+                    assertArrayEquals(policy + ", step " + step, expected.get(i), records.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldFollowAppends() throws Exception {
+        Path path = folder.newFile("feed.csv").toPath();
+        CountDownLatch latch = new CountDownLatch(2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser)) {
+            Thread follower = new Thread(() -> {
+                try {
+                    reader.follow(record -> {
+                        records.add(record);
+                        latch.countDown();
+                    }, 10, TimeUnit.MILLISECONDS);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            follower.start();
+
+            append(path, "1,a\n");
+            append(path, "2,b\n");
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            reader.close();
+            follower.join(10_000);
+
+            assertFalse(follower.isAlive());
+            assertNull(failure.get());
+        }
+
+        assertArrayEquals(new String[]{"2", "b"}, records.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCheckpointOfOtherDialect() throws IOException {
+        Path path = folder.newFile("feed.csv").toPath();
+        Path checkpoint = folder.getRoot().toPath().resolve("feed.csv.tail");
+
+        append(path, "a,b\n");
+        try (CsvTailReader reader = new CsvTailReader(path, csvParser, checkpoint)) {
+            reader.poll(record -> {
+            });
+        }
+
+        new CsvTailReader(path, new CsvParser(CsvParser.SEMICOLON, CsvParser.DOUBLE_QUOTES, 100, 10), checkpoint)
+                .close();
+    }
+
+    private static void append(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,116 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CsvWriterTest {
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 1000, 100);
+
+    @Test
+    public void shouldQuoteOnlyWhenNeeded() throws IOException {
+        assertEquals("a, b ,,c\n", write(csvParser, "a", " b ", null, "c"));
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"x\ny\",\"\r\"\n", write(csvParser, "a,b", "say \"hi\"", "x\ny", "\r"));
+        assertEquals("\"\"\n", write(csvParser, ""));
+        assertEquals("\n", write(csvParser));
+    }
+
+    @Test
+    public void shouldUseParserDialect() throws IOException {
+        CsvParser parser = new CsvParser(CsvParser.SEMICOLON, CsvParser.SINGLE_QUOTES, 1000, 100);
+
+        assertEquals("a,b;'it''s';\"\n", write(parser, "a,b", "it's", "\""));
+    }
+
+    @Test
+    public void shouldRoundTripThroughParseLine() throws IOException {
+        Random random = new Random(18);
+
+        for (int round = 0; round < 1000; ++round) {
+            String[] row = randomRow(random);
+            String written = write(csvParser, row);
+
+            assertArrayEquals(written, row, csvParser.parseLine(written.substring(0, written.length() - 1)));
+        }
+    }
+
+    @Test
+    public void shouldRoundTripThroughReaderWithSmallBuffer() throws IOException {
+        Random random = new Random(81);
+        List<String[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < 500; ++i) {
+            rows.add(randomRow(random));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 7)) {
+            writer.writeRows(rows);
+        }
+
+        CsvReader reader = new CsvReader(new StringReader(new String(output.toByteArray(), StandardCharsets.UTF_8)),
+                csvParser);
+
+        for (String[] row : rows) {
+            assertArrayEquals(row, reader.readRecord());
+        }
+
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void shouldWriteCharSequences() throws IOException {
+        StringWriter output = new StringWriter();
+
+        try (CsvWriter writer = new CsvWriter(output)) {
+            writer.writeRows(new CharSequence[][]{
+                    {new StringBuilder("a\"b"), "c"},
+                    {new StringBuilder("d")}
+            });
+        }
+
+        assertEquals(Arrays.asList("a\"b", "c"), Arrays.asList(csvParser.parseLine("\"a\"\"b\",c")));
+        assertEquals("\"a\"\"b\",c\nd\n", output.toString());
+    }
+
+    private static String write(CsvParser parser, CharSequence... fields) throws IOException {
+        StringWriter output = new StringWriter();
+
+        try (CsvWriter writer = new CsvWriter(output, parser)) {
+            writer.writeRow(fields);
+        }
+
+        return output.toString();
+    }
+
+    private static String[] randomRow(Random random) {
+        char[] alphabet = {'a', 'b', ' ', ',', '"', '\n', '\r', '\t', 'ü'};
+        String[] row = new String[1 + random.nextInt(6)];
+
+        for (int i = 0; i < row.length; ++i) {
+            StringBuilder field = new StringBuilder();
+
+            for (int length = random.nextInt(12); 0 < length; --length) {
+                field.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+
+            row[i] = field.toString();
+        }
+
+        return row;
+    }
+}
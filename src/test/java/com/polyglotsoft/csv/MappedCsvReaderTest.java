@@ -0,0 +1,223 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedCsvReaderTest {
+    private static final String[] LINES = {
+            "\"\"",
+            " ",
+            "\" \"",
+            " \" abc\"  ",
+            "   \" b\"\"bb\"   ",
+            "\"a,aa\"",
+            ",",
+            "aaa , \" bbb\" , ccc ",
+            " \"aaa\"  ,   \"bbb\"   ",
+            "\"4\"\"four\"",
+            "\"\"a\"\"",
+            "addr\"\"ess\"\"8@domain.com",
+            "\"hello,\"\"\"\",world\"",
+            "\"Quoted test with \"\"inner\"\" quotes\"",
+            "Unquoted test 2, \"Quoted test with \"\"inner\"\" quotes\", 23234, One Two Three, \"34312.7\"",
+            "1,\"2,two\",\"3\nthree\",\"4\"\"four\"",
+            "1\",2\"",
+            "1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",4900.00",
+            "1999,Chevy,\"Venture \"\"Extended Edition, Very Large\"\"\",,5000.00",
+            "1996,Jeep,Grand Cherokee,\"MUST SELL!\r\nair, moon roof, loaded\",4799.00",
+            "\"weird\"\"\"\"quotes \",true,false,123,45.6",
+            "Null, \"ok whitespace outside quotes\" ,trailing unquoted  ,   both   ,   leading",
+            "\"\"\"a\"\"\"",
+            "\"\"\"\"\"a\"\"\"\"\""
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldReadEmptyFile() throws IOException {
+        try (MappedCsvReader reader = new MappedCsvReader(write(""), csvParser)) {
+            assertFalse(reader.next());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldReadLikeParseLine() throws IOException {
+        Path path = write(String.join("\n", LINES));
+
+        for (int windowSize : new int[]{1, 2, 7, 64, MappedCsvReader.WINDOW_SIZE}) {
+            try (MappedCsvReader reader = new MappedCsvReader(path, csvParser, windowSize)) {
+                for (String line : LINES) {
+                    assertArrayEquals(line, csvParser.parseLine(line), reader.readRecord());
+                }
+
+                assertNull(reader.readRecord());
+            }
+        }
+    }
+
+    @Test
+    public void shouldDecodeFieldsOnDemand() throws IOException {
+        Path path = write("name;city\r\n\"Jürgen \"\"J\"\"\";Köln\r\n\r\nÅsa;Malmö");
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, new CsvParser(CsvParser.SEMICOLON))) {
+            assertTrue(reader.next());
+            assertEquals(0, reader.getRecordOffset());
+            assertEquals(2, reader.getFieldCount());
+
+            assertTrue(reader.next());
+            assertEquals(11, reader.getRecordOffset());
+            assertEquals("Köln", reader.getField(1));
+            assertEquals("Jürgen \"J\"", reader.getField(0));
+
+            assertArrayEquals(new String[]{"Åsa", "Malmö"}, reader.readRecord());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void shouldCountLineLimitInChars() throws IOException {
+        Path path = write("äöü€x\n1234567890");
+
+        try (MappedCsvReader reader = new MappedCsvReader(path,
+                new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 4, 1))) {
+            assertArrayEquals(new String[]{"äöü€"}, reader.readRecord());
+            assertArrayEquals(new String[]{"1234"}, reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldReadUnclosedQuotationUntilEnd() throws IOException {
+        Path path = write("a\n\",\nb,c\n");
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, csvParser)) {
+            assertArrayEquals(new String[]{"a"}, reader.readRecord());
+            assertArrayEquals(new String[]{"\"", "\nb", "c\n"}, reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldUseConfiguredDialect() throws IOException {
+        Path path = write("'a;b';'c''d'\n");
+
+        try (MappedCsvReader reader = new MappedCsvReader(path,
+                new CsvParser(CsvParser.SEMICOLON, CsvParser.SINGLE_QUOTES, 100, 10))) {
+            assertArrayEquals(new String[]{"a;b", "c'd"}, reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        return path;
+    }
+
+    @Test
+    public void shouldSkipFilteredRecords() throws IOException {
+        Path path = write("id,name\n1,Köln\n2,Berlin\n3,Kiel\n");
+        CsvParser filtered = csvParser.withFilter(new CsvRowFilter().startsWith(1, "K").between(0, 2, 3));
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, filtered)) {
+            assertArrayEquals(new String[]{"3", "Kiel"}, reader.readRecord());
+            assertEquals(25, reader.getRecordOffset());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void shouldResyncAfterRunawayQuotation() throws IOException {
+        Path path = write("a,b\n\"Köln,x\nnext,1\nnext,2\nnext,3\nlast,4");
+        CsvErrorSink sink = new CsvErrorSink();
+        CsvParser parser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 20, 3)
+                .withErrorPolicy(CsvErrorPolicy.SKIP, sink);
+
+        for (int windowSize : new int[]{8, MappedCsvReader.WINDOW_SIZE}) {
+            sink.clear();
+
+            try (MappedCsvReader reader = new MappedCsvReader(path, parser, windowSize)) {
+                assertArrayEquals(new String[]{"a", "b"}, reader.readRecord());
+                assertArrayEquals(new String[]{"next", "1"}, reader.readRecord());
+                assertEquals(13, reader.getRecordOffset());
+                assertArrayEquals(new String[]{"next", "2"}, reader.readRecord());
+                assertArrayEquals(new String[]{"next", "3"}, reader.readRecord());
+                assertArrayEquals(new String[]{"last", "4"}, reader.readRecord());
+                assertNull(reader.readRecord());
+            }
+
+            assertEquals(1, sink.getErrorCount());
+            assertEquals(1, sink.getErrors().get(0).getRow());
+            assertEquals(4, sink.getErrors().get(0).getOffset());
+        }
+    }
+
+    @Test
+    public void shouldCutLongRecordsLikeCsvReader() throws IOException {
+        String[] contents = {"\"ab\nc,d\ne\"\nz\n", "a,\"bcdefghij\n1,2\n3,4\n", "x\n\"a\nb", "x\n\"a\nb\n",
+                "ééé\"é\nüü\n\"ab\n", "a,\"\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\nb\n"};
+
+        for (String content : contents) {
+            Path path = write(content);
+
+            for (int lineLimit = 1; lineLimit < 12; ++lineLimit) {
+                for (CsvErrorPolicy policy : CsvErrorPolicy.values()) {
+                    CsvParser parser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, lineLimit, 3)
+                            .withErrorPolicy(policy, null);
+                    List<String[]> expected = readAll(new CsvReader(new StringReader(content), parser));
+
+                    for (int windowSize : new int[]{1, 3, 8, MappedCsvReader.WINDOW_SIZE}) {
+                        String message = content + ", lineLimit " + lineLimit + ", " + policy + ", window " + windowSize;
+                        List<String[]> records = readAll(new MappedCsvReader(path, parser, windowSize));
+
+                        assertEquals(message, expected.size(), records.size());
+                        for (int i = 0; i < expected.size(); ++i) {
+                            assertArrayEquals(message, expected.get(i), records.get(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String[]> readAll(CsvRecordReader reader) throws IOException {
+        List<String[]> records = new ArrayList<>();
+
+        try (CsvRecordReader input = reader) {
+            while (true) {
+                try {
+                    String[] record = input.readRecord();
+                    if (null == record) {
+                        return records;
+                    }
+
+                    records.add(record);
+                } catch (CsvFormatException e) {
+                    records.add(new String[]{e.getError().getReason().name()});
+
+                    return records;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.polyglotsoft.csv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelCsvParserTest {
+    private static final String CONTENT = "Year,Make,Model,Description,Price\r\n"
+            + "1997,Ford,E350,\"ac, abs, moon\",3000.00\r\n"
+            + "1999,Chevy,\"Venture \"\"Extended Edition\"\"\",\"\",4900.00\r\n"
+            + "1999,Chevy,\"Venture \"\"Extended Edition, Very Large\"\"\",,5000.00\r\n"
+            + "1996,Jeep,Grand Cherokee,\"MUST SELL!\n\"\"air\"\", moon roof,\nloaded\",4799.00\r\n"
+            + "\n"
+            + "1\",2\",\"\"\"3\n\"\"\"\n"
+            + "addr\"\"ess\"\"8@domain.com,\"\"\"\",\"\n\n\n\"\n"
+            + "last";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CsvParser csvParser = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 100, 10);
+
+    @Test
+    public void shouldParseEmptyFile() throws IOException {
+        assertTrue(new ParallelCsvParser(csvParser).parse(write("")).isEmpty());
+    }
+
+    @Test
+    public void shouldMatchSequentialReaderForAnyChunkSize() throws IOException {
+        Path path = write(CONTENT);
+        List<String[]> expected = readSequentially(path);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int chunkSize = 1; chunkSize <= CONTENT.length() + 1; ++chunkSize) {
+                List<String[]> actual = new ParallelCsvParser(csvParser, pool, chunkSize).parse(path);
+
+                assertEquals("chunkSize " + chunkSize, expected.size(), actual.size());
+
+                for (int i = 0; i < expected.size(); ++i) {
+                    assertArrayEquals("chunkSize " + chunkSize, expected.get(i), actual.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldParseUnordered() throws IOException {
+        Path path = write(CONTENT);
+        List<String[]> expected = readSequentially(path);
+        List<String[]> actual = Collections.synchronizedList(new ArrayList<>());
+
+        new ParallelCsvParser(csvParser, ForkJoinPool.commonPool(), 16).parse(path, false, actual::add);
+
+        Comparator<String[]> comparator = Comparator.comparing(record -> String.join("\u0000", record));
+        expected.sort(comparator);
+        actual.sort(comparator);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void shouldKeepUnclosedQuotationInOneRange() throws IOException {
+        Path path = write("a,b\n\"c\nd,e\nf");
+
+        List<String[]> records = new ParallelCsvParser(csvParser, ForkJoinPool.commonPool(), 2).parse(path);
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"a", "b"}, records.get(0));
+        assertArrayEquals(new String[]{"\"c\nd", "e\nf"}, records.get(1));
+    }
+
+    @Test
+    public void shouldMatchSequentialReaderWhenResynchronizing() throws IOException {
+        StringBuilder builder = new StringBuilder("a,b\n\"open,x\n");
+        for (int i = 0; i < 2000; ++i) {
+            builder.append(i).append(",next\n");
+        }
+
+        Path path = write(builder.toString());
+        CsvParser lenient = new CsvParser(CsvParser.COMMA, CsvParser.DOUBLE_QUOTES, 20, 3)
+                .withErrorPolicy(CsvErrorPolicy.LENIENT, null);
+        List<String[]> expected = new ArrayList<>();
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, lenient)) {
+            for (String[] record; null != (record = reader.readRecord()); ) {
+                expected.add(record);
+            }
+        }
+
+        List<String[]> actual = new ParallelCsvParser(lenient, ForkJoinPool.commonPool(), 64).parse(path);
+
+        assertEquals(2002, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private List<String[]> readSequentially(Path path) throws IOException {
+        List<String[]> records = new ArrayList<>();
+
+        try (MappedCsvReader reader = new MappedCsvReader(path, csvParser)) {
+            String[] record;
+
+            while (null != (record = reader.readRecord())) {
+                records.add(record);
+            }
+        }
+
+        return records;
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        return path;
+    }
+}